@@ -0,0 +1,65 @@
+package com.example.springrest.benchmark;
+
+import com.example.springrest.SpringRestApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+/** Deterministic data sets and an application context on an embedded database for the benchmarks **/
+public class BenchmarkData {
+    public static final String[] GENRES = {"Action", "Adventure", "Animation", "Comedy", "Crime", "Drama", "Fantasy",
+            "Horror", "Mystery", "Romance", "Sci-Fi", "Thriller"};
+    private static final String[] WORDS = {"Night", "Return", "Shadow", "River", "Empire", "Last", "Dream", "Storm",
+            "Secret", "King", "Lost", "City"};
+
+    /** A JSON array of movies like the upload endpoint accepts, with one director per ten movies **/
+    public static byte[] moviesJson(int count) {
+        Random random = new Random(42);
+        int directors = Math.max(1, count / 10);
+        StringBuilder json = new StringBuilder(count * 128).append('[');
+        for (int i = 0; i < count; i++) {
+            Set<String> genres = new LinkedHashSet<>();
+            int genreCount = 1 + random.nextInt(3);
+            while (genres.size() < genreCount) {
+                genres.add(GENRES[random.nextInt(GENRES.length)]);
+            }
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"title\":\"").append(WORDS[random.nextInt(WORDS.length)]).append(' ')
+                    .append(WORDS[random.nextInt(WORDS.length)]).append(' ').append(i)
+                    .append("\",\"year\":").append(1900 + random.nextInt(120))
+                    .append(",\"genre\":[\"").append(String.join("\",\"", genres))
+                    .append("\"],\"director\":\"Director ").append(random.nextInt(directors)).append("\"}");
+        }
+        return json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Starts the application without the web server on a fresh in-memory H2 database. The properties override
+     * application.properties, e.g. {@code movie.catalog.enabled=true}.
+     */
+    public static ConfigurableApplicationContext startApplication(String... properties) {
+        return new SpringApplicationBuilder(SpringRestApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "logging.level.root=WARN")
+                .run(Arrays.stream(properties).map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    public static void deleteAllMovies(ConfigurableApplicationContext context) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM Movie");
+        jdbcTemplate.update("DELETE FROM Director");
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.springrest.benchmark;
+
+import com.example.springrest.cache.EntityChangedEvent;
+import com.example.springrest.cache.InvalidationBus;
+import com.example.springrest.dto.GenreMatch;
+import com.example.springrest.dto.MovieQueryListDTO;
+import com.example.springrest.dto.MovieResponseListDTO;
+import com.example.springrest.service.MovieImportService;
+import com.example.springrest.service.MovieService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/** The list queries of {@link MovieQueryBenchmark}, answered from the in-memory catalog instead of the database **/
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MovieCatalogBenchmark {
+    private static final Set<String> GENRES = Set.of("Drama", "Comedy");
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private MovieService movieService;
+
+    @Setup(Level.Trial)
+    public void loadMovies() {
+        context = BenchmarkData.startApplication("movie.catalog.enabled=true");
+        movieService = context.getBean(MovieService.class);
+        context.getBean(MovieImportService.class).importMovies(new ByteArrayInputStream(BenchmarkData.moviesJson(size)));
+        // Reload in one pass rather than measuring a catalog that grew row by row
+        context.getBean(InvalidationBus.class).publish(new EntityChangedEvent(EntityChangedEvent.EntityType.MOVIE, List.of()));
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public MovieResponseListDTO listByGenres() {
+        return movieService.findMoviesByQuery(new MovieQueryListDTO(null, 0, GENRES, GenreMatch.ANY, null, null,
+                1, 20, null, null));
+    }
+
+    @Benchmark
+    public MovieResponseListDTO listByDirector() {
+        return movieService.findMoviesByQuery(new MovieQueryListDTO(null, 0, null, null, "Director 7", null,
+                1, 20, null, null));
+    }
+
+    @Benchmark
+    public MovieResponseListDTO listByGenresAndYearByCursor() {
+        return movieService.findMoviesByQuery(new MovieQueryListDTO(null, 2000, GENRES, GenreMatch.ALL, null, null,
+                0, 20, "", null));
+    }
+}
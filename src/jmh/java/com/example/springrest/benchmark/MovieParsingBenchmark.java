@@ -0,0 +1,79 @@
+package com.example.springrest.benchmark;
+
+import com.example.springrest.dto.MovieCreateDTO;
+import com.example.springrest.service.utils.MovieGson;
+import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of an upload file with the Gson setup and record-by-record reading of the import, without the database.
+ * {@code treeAdapters} keeps the former per-field {@code JsonDeserializer}s as the baseline; run with
+ * {@code -prof gc} and compare {@code gc.alloc.rate.norm} divided by {@code size} for the allocation per record.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MovieParsingBenchmark {
+    private static final Gson TREE_ADAPTERS = new GsonBuilder()
+            .registerTypeAdapter(Integer.class, (JsonDeserializer<Integer>) (json, type, context) -> {
+                try {
+                    return Integer.parseInt(json.getAsString());
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+            })
+            .registerTypeAdapter(Set.class, (JsonDeserializer<Set<String>>) (json, type, context) -> {
+                if (!json.isJsonArray()) {
+                    return null;
+                }
+                Set<String> genre = new HashSet<>();
+                for (JsonElement element : json.getAsJsonArray()) {
+                    genre.add(element.getAsString());
+                }
+                return genre;
+            })
+            .create();
+
+    @Param({"1000", "100000"})
+    private int size;
+
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        json = BenchmarkData.moviesJson(size);
+    }
+
+    @Benchmark
+    public void parseUploadFile(Blackhole blackhole) throws IOException {
+        parse(MovieGson.create(), blackhole);
+    }
+
+    @Benchmark
+    public void treeAdapters(Blackhole blackhole) throws IOException {
+        parse(TREE_ADAPTERS, blackhole);
+    }
+
+    private void parse(Gson gson, Blackhole blackhole) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                blackhole.consume(gson.fromJson(reader, MovieCreateDTO.class));
+            }
+            reader.endArray();
+        }
+    }
+}
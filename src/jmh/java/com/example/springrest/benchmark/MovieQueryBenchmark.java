@@ -0,0 +1,94 @@
+package com.example.springrest.benchmark;
+
+import com.example.springrest.dto.GenreMatch;
+import com.example.springrest.dto.MovieQueryDTO;
+import com.example.springrest.dto.MovieQueryListDTO;
+import com.example.springrest.dto.MovieResponseListDTO;
+import com.example.springrest.model.Movie;
+import com.example.springrest.service.GenreDictionary;
+import com.example.springrest.service.MovieImportService;
+import com.example.springrest.service.MovieService;
+import com.example.springrest.service.report.ReportContent;
+import com.example.springrest.service.report.ReportEncoding;
+import com.example.springrest.service.report.ReportFormat;
+import com.example.springrest.service.utils.MovieSpecifications;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/** Read paths against a preloaded embedded database: list pages with DTO mapping, the CSV report and query building **/
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MovieQueryBenchmark {
+    private static final Set<String> GENRES = Set.of("Drama", "Comedy");
+    private static final ReportContent CSV = new ReportContent(ReportFormat.CSV, MediaType.APPLICATION_OCTET_STREAM,
+            ReportEncoding.IDENTITY);
+
+    @Param({"10000", "100000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private MovieService movieService;
+    private EntityManager entityManager;
+    private short[] genreIds;
+
+    @Setup(Level.Trial)
+    public void loadMovies() {
+        context = BenchmarkData.startApplication();
+        movieService = context.getBean(MovieService.class);
+        entityManager = context.getBean(EntityManager.class);
+        context.getBean(MovieImportService.class).importMovies(new ByteArrayInputStream(BenchmarkData.moviesJson(size)));
+        genreIds = context.getBean(GenreDictionary.class).find(GENRES);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public MovieResponseListDTO listByGenres() {
+        return movieService.findMoviesByQuery(new MovieQueryListDTO(null, 0, GENRES, GenreMatch.ANY, null, null,
+                1, 20, null, null));
+    }
+
+    @Benchmark
+    public MovieResponseListDTO listByDirector() {
+        return movieService.findMoviesByQuery(new MovieQueryListDTO(null, 0, null, null, "Director 7", null,
+                1, 20, null, null));
+    }
+
+    @Benchmark
+    public int reportByGenres() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        movieService.generateReport(new MovieQueryDTO(null, 0, GENRES, GenreMatch.ALL, null, null), CSV, response);
+        return response.getContentAsByteArray().length;
+    }
+
+    /** Composes the specifications the way the service does and turns them into a JPA query without running it **/
+    @Benchmark
+    public TypedQuery<Movie> buildSpecificationQuery() {
+        Specification<Movie> specification = Specification.where(MovieSpecifications.hasYear(2000))
+                .and(MovieSpecifications.hasGenre(genreIds, GenreMatch.ANY))
+                .and(MovieSpecifications.hasDirectorName("Director 7"));
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Movie> query = criteriaBuilder.createQuery(Movie.class);
+        Root<Movie> root = query.from(Movie.class);
+        return entityManager.createQuery(query.where(specification.toPredicate(root, query, criteriaBuilder)));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.springrest.benchmark;
+
+import com.example.springrest.dto.MovieUploadResponseDTO;
+import com.example.springrest.service.MovieService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.util.concurrent.TimeUnit;
+
+/** Whole synchronous upload into an empty embedded database: parsing, deduplication and batch inserts **/
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class MovieUploadBenchmark {
+    @Param({"1000", "10000"})
+    private int size;
+
+    private ConfigurableApplicationContext context;
+    private MovieService movieService;
+    private byte[] json;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkData.startApplication();
+        movieService = context.getBean(MovieService.class);
+        json = BenchmarkData.moviesJson(size);
+    }
+
+    @Setup(Level.Iteration)
+    public void emptyDatabase() {
+        BenchmarkData.deleteAllMovies(context);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public MovieUploadResponseDTO uploadMovies() {
+        return movieService.uploadMovies(new MockMultipartFile("file", "movies.json", "application/json", json));
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.springrest.load;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Year;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Deterministic synthetic catalogs in the upload format of {@code src/test/resources/movies.json}.
+ * Directors and genres follow power laws, so a few prolific directors and popular genres dominate like
+ * in real catalogs, and about one movie in a hundred repeats an earlier one to exercise deduplication.
+ * The same seed and size always produce the same file.
+ * <p>
+ * Usage: {@code CatalogGenerator <size> <output file> [seed]}
+ */
+public class CatalogGenerator {
+    public static final String[] GENRES = {"Drama", "Comedy", "Action", "Thriller", "Romance", "Horror", "Crime",
+            "Adventure", "Sci-Fi", "Fantasy", "Mystery", "Animation", "Family", "Documentary", "Biography", "War",
+            "History", "Music", "Western", "Sport"};
+    private static final String[] WORDS = {"Night", "Return", "Shadow", "River", "Empire", "Last", "Dream", "Storm",
+            "Secret", "King", "Lost", "City", "Blood", "Star", "Silent", "Road", "Winter", "Fire", "Ghost", "Heart",
+            "Iron", "Broken", "Golden", "Wild", "Dark", "Summer", "Edge", "Promise", "Escape", "Legacy"};
+    private static final double DUPLICATE_RATE = 0.01;
+
+    private final int size;
+    private final long seed;
+
+    public CatalogGenerator(int size, long seed) {
+        this.size = size;
+        this.seed = seed;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: CatalogGenerator <size> <output file> [seed]");
+            return;
+        }
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        new CatalogGenerator(Integer.parseInt(args[0]), seed).write(Path.of(args[1]));
+    }
+
+    /** Number of distinct directors in a catalog of this size **/
+    public int directorCount() {
+        return Math.max(1, size / 20);
+    }
+
+    public static String directorName(int rank) {
+        return "Director " + rank;
+    }
+
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            write(outputStream);
+        }
+    }
+
+    /** Streams the catalog, so its size is not limited by memory **/
+    public void write(OutputStream outputStream) throws IOException {
+        Random random = new Random(seed);
+        Zipf directors = new Zipf(directorCount(), 1.1);
+        Zipf genres = new Zipf(GENRES.length, 1.0);
+        int lastYear = Year.now().getValue();
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 1 << 16);
+        writer.write("[\n");
+        String previous = null;
+        for (int i = 0; i < size; i++) {
+            String movie;
+            if (previous != null && random.nextDouble() < DUPLICATE_RATE) {
+                movie = previous;
+            } else {
+                Set<String> movieGenres = new LinkedHashSet<>();
+                int genreCount = 1 + random.nextInt(3);
+                while (movieGenres.size() < genreCount) {
+                    movieGenres.add(GENRES[genres.sample(random)]);
+                }
+                // Newer years are more common, as in real catalogs
+                int year = lastYear - (int) Math.min(lastYear - 1900, Math.abs(random.nextGaussian()) * 30);
+                movie = "  {\"title\": \"" + WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                        + " " + i + "\", \"year\": " + year
+                        + ", \"genre\": [\"" + String.join("\", \"", movieGenres) + "\"]"
+                        + ", \"director\": \"" + directorName(directors.sample(random)) + "\"}";
+            }
+            writer.write(movie);
+            writer.write(i < size - 1 ? ",\n" : "\n");
+            previous = movie;
+        }
+        writer.write("]\n");
+        writer.flush();
+    }
+}
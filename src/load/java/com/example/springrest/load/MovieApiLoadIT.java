@@ -0,0 +1,298 @@
+package com.example.springrest.load;
+
+import com.example.springrest.SpringRestApplication;
+import com.example.springrest.service.MovieImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mixed HTTP workload against the application on an embedded H2 database, seeded with a synthetic catalog.
+ * Every endpoint gets an HDR latency histogram; the percentiles are printed and written to
+ * {@code target/load-report.json}, and the build fails when an endpoint exceeds its p99 limit or
+ * the error rate is too high.
+ * <p>
+ * Run with {@code mvn -P load verify}. Settings are system properties, e.g.
+ * {@code -Dload.catalog.size=2000000 -Dload.duration-seconds=120 -Dload.p99-millis.list=100}.
+ */
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        classes = SpringRestApplication.class,
+        properties = {
+                "spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1",
+                "spring.jpa.properties.hibernate.generate_statistics=false",
+                "logging.level.root=WARN"
+        }
+)
+@ActiveProfiles("test")
+public class MovieApiLoadIT {
+    private static final long SEED = 42;
+    private static final int UPLOAD_SIZE = 100;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private MovieImportService movieImportService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final AtomicInteger uniqueNames = new AtomicInteger();
+
+    private CatalogGenerator catalog;
+    private Zipf directors;
+    private Zipf genres;
+    private Zipf hotMovies;
+    private long[] movieIds;
+
+    /** Share of requests, the limit on the 99th percentile and the statuses that count as success **/
+    private enum Endpoint {
+        GET_MOVIE(50, 50, 200),
+        LIST(20, 250, 200),
+        REPORT(3, 3000, 200, 404),
+        UPLOAD(2, 3000, 200, 201),
+        GET_DIRECTORS(20, 250, 200),
+        ADD_DIRECTOR(5, 100, 201);
+
+        final int weight;
+        final long defaultP99Millis;
+        final Set<Integer> expectedStatuses = new HashSet<>();
+
+        Endpoint(int weight, long defaultP99Millis, Integer... expectedStatuses) {
+            this.weight = weight;
+            this.defaultP99Millis = defaultP99Millis;
+            this.expectedStatuses.addAll(List.of(expectedStatuses));
+        }
+
+        String key() {
+            return name().toLowerCase(Locale.ROOT).replace('_', '-');
+        }
+
+        long p99LimitMillis() {
+            return Long.getLong("load.p99-millis." + key(), defaultP99Millis);
+        }
+    }
+
+    @Test
+    public void mixedWorkloadStaysWithinLimits() throws Exception {
+        int catalogSize = Integer.getInteger("load.catalog.size", 100_000);
+        int workers = Integer.getInteger("load.workers", 8);
+        Duration warmup = Duration.ofSeconds(Long.getLong("load.warmup-seconds", 10));
+        Duration duration = Duration.ofSeconds(Long.getLong("load.duration-seconds", 30));
+        double maxErrorRate = Double.parseDouble(System.getProperty("load.max-error-rate", "0.001"));
+
+        seed(catalogSize);
+
+        run(workers, warmup, new EnumMap<>(Endpoint.class), new AtomicLong());
+        Map<Endpoint, Recorder> recorders = new EnumMap<>(Endpoint.class);
+        AtomicLong errors = new AtomicLong();
+        long started = System.nanoTime();
+        run(workers, duration, recorders, errors);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        Map<Endpoint, Histogram> histograms = new EnumMap<>(Endpoint.class);
+        recorders.forEach((endpoint, recorder) -> histograms.put(endpoint, recorder.getIntervalHistogram()));
+        long requests = histograms.values().stream().mapToLong(Histogram::getTotalCount).sum();
+        report(catalogSize, workers, seconds, histograms, requests, errors.get());
+
+        List<String> violations = new ArrayList<>();
+        histograms.forEach((endpoint, histogram) -> {
+            double p99 = histogram.getValueAtPercentile(99) / 1e6;
+            if (p99 > endpoint.p99LimitMillis()) {
+                violations.add("%s p99 %.1f ms > %d ms".formatted(endpoint.key(), p99, endpoint.p99LimitMillis()));
+            }
+        });
+        if (requests > 0 && (double) errors.get() / requests > maxErrorRate) {
+            violations.add("error rate %d/%d > %s".formatted(errors.get(), requests, maxErrorRate));
+        }
+        assertTrue(violations.isEmpty(), String.join("; ", violations));
+    }
+
+    private void seed(int catalogSize) throws IOException {
+        catalog = new CatalogGenerator(catalogSize, SEED);
+        Path file = Path.of("target", "load", "catalog-" + catalogSize + "-" + SEED + ".json");
+        if (!Files.exists(file)) {
+            catalog.write(file);
+        }
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            movieImportService.importMovies(inputStream);
+        }
+        movieIds = jdbcTemplate.queryForList("SELECT id FROM Movie ORDER BY id", Long.class).stream()
+                .mapToLong(Long::longValue).toArray();
+        directors = new Zipf(catalog.directorCount(), 1.1);
+        genres = new Zipf(CatalogGenerator.GENRES.length, 1.0);
+        // Popular movies are requested far more often, which is what the movie cache sees in production
+        hotMovies = new Zipf(movieIds.length, 0.9);
+    }
+
+    private void run(int workers, Duration duration, Map<Endpoint, Recorder> recorders, AtomicLong errors)
+            throws InterruptedException {
+        for (Endpoint endpoint : Endpoint.values()) {
+            recorders.putIfAbsent(endpoint, new Recorder(3));
+        }
+        int totalWeight = Arrays.stream(Endpoint.values()).mapToInt(endpoint -> endpoint.weight).sum();
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        for (int worker = 0; worker < workers; worker++) {
+            Random random = new Random(SEED + worker);
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    Endpoint endpoint = pick(random, totalWeight);
+                    HttpRequest request = request(endpoint, random);
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                        recorders.get(endpoint).recordValue(System.nanoTime() - start);
+                        if (!endpoint.expectedStatuses.contains(response.statusCode())) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        recorders.get(endpoint).recordValue(System.nanoTime() - start);
+                        errors.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        if (!executor.awaitTermination(duration.toSeconds() + 300, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Endpoint pick(Random random, int totalWeight) {
+        int value = random.nextInt(totalWeight);
+        for (Endpoint endpoint : Endpoint.values()) {
+            value -= endpoint.weight;
+            if (value < 0) {
+                return endpoint;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    private HttpRequest request(Endpoint endpoint, Random random) {
+        return switch (endpoint) {
+            case GET_MOVIE -> get("/api/movie/" + movieIds[hotMovies.sample(random)]);
+            case LIST -> postJson("/api/movie/_list", random.nextBoolean()
+                    ? "{\"genre\": [\"%s\"], \"page\": %d, \"size\": 20}".formatted(genre(random), 1 + random.nextInt(5))
+                    : "{\"director\": \"%s\", \"page\": 1, \"size\": 20}".formatted(director(random)));
+            case REPORT -> postJson("/api/movie/_report",
+                    "{\"director\": \"%s\", \"genre\": [\"%s\"]}".formatted(director(random), genre(random)));
+            case UPLOAD -> upload(random);
+            case GET_DIRECTORS -> get("/api/director");
+            case ADD_DIRECTOR -> postJson("/api/director",
+                    "{\"name\": \"Load director %d\"}".formatted(uniqueNames.incrementAndGet()));
+        };
+    }
+
+    private String genre(Random random) {
+        return CatalogGenerator.GENRES[genres.sample(random)];
+    }
+
+    private String director(Random random) {
+        return CatalogGenerator.directorName(directors.sample(random));
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).GET().build();
+    }
+
+    private HttpRequest postJson(String path, String json) {
+        return HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    /** A small catalog of its own for every upload, so most of its movies are new **/
+    private HttpRequest upload(Random random) {
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        try {
+            new CatalogGenerator(UPLOAD_SIZE, random.nextLong()).write(json);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        String boundary = "load-" + uniqueNames.incrementAndGet();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        body.writeBytes(("--" + boundary + "\r\nContent-Disposition: form-data; name=\"file\"; filename=\"movies.json\"\r\n"
+                + "Content-Type: application/json\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        body.writeBytes(json.toByteArray());
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8));
+        return HttpRequest.newBuilder(uri("/api/movie/upload"))
+                .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private void report(int catalogSize, int workers, double seconds, Map<Endpoint, Histogram> histograms,
+                        long requests, long errors) throws IOException {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        System.out.printf("%n%-14s %8s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        histograms.forEach((endpoint, histogram) -> {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("count", histogram.getTotalCount());
+            stats.put("throughput", histogram.getTotalCount() / seconds);
+            stats.put("p50Millis", histogram.getValueAtPercentile(50) / 1e6);
+            stats.put("p90Millis", histogram.getValueAtPercentile(90) / 1e6);
+            stats.put("p99Millis", histogram.getValueAtPercentile(99) / 1e6);
+            stats.put("p999Millis", histogram.getValueAtPercentile(99.9) / 1e6);
+            stats.put("maxMillis", histogram.getMaxValue() / 1e6);
+            stats.put("p99LimitMillis", endpoint.p99LimitMillis());
+            endpoints.put(endpoint.key(), stats);
+            System.out.printf("%-14s %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", endpoint.key(),
+                    stats.get("count"), stats.get("throughput"), stats.get("p50Millis"), stats.get("p90Millis"),
+                    stats.get("p99Millis"), stats.get("p999Millis"), stats.get("maxMillis"));
+        });
+        System.out.printf("total %d requests, %.1f req/s, %d errors, %s threads%n%n", requests, requests / seconds, errors,
+                Boolean.getBoolean("spring.threads.virtual.enabled") ? "virtual" : "platform");
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("catalogSize", catalogSize);
+        result.put("workers", workers);
+        result.put("virtualThreads", Boolean.getBoolean("spring.threads.virtual.enabled"));
+        result.put("seconds", seconds);
+        result.put("requests", requests);
+        result.put("throughput", requests / seconds);
+        result.put("errors", errors);
+        result.put("endpoints", endpoints);
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(Path.of("target", "load-report.json").toFile(), result);
+    }
+}
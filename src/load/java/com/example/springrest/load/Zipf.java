@@ -0,0 +1,26 @@
+package com.example.springrest.load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/** Power-law sampler over ranks 0..n-1: rank k is drawn with probability proportional to 1 / (k + 1)^exponent **/
+public class Zipf {
+    private final double[] cumulative;
+
+    public Zipf(int n, double exponent) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    public int sample(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.springrest.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/** Evicts the local caches for every change delivered by the bus **/
+@Component
+public class CacheInvalidator {
+    public static final String MOVIE_CACHE = "movies";
+    public static final String DIRECTOR_CACHE = "directors";
+
+    private final CacheManager cacheManager;
+
+    public CacheInvalidator(CacheManager cacheManager, InvalidationBus invalidationBus) {
+        this.cacheManager = cacheManager;
+        invalidationBus.subscribe(this::evict);
+    }
+
+    private void evict(EntityChangedEvent event) {
+        switch (event.type()) {
+            case MOVIE -> {
+                Cache movies = cacheManager.getCache(MOVIE_CACHE);
+                if (movies == null) {
+                    return;
+                }
+                if (event.isAll()) {
+                    movies.clear();
+                } else {
+                    event.ids().forEach(movies::evict);
+                }
+            }
+            case DIRECTOR -> {
+                Cache directors = cacheManager.getCache(DIRECTOR_CACHE);
+                if (directors != null) {
+                    directors.clear();
+                }
+            }
+        }
+    }
+}
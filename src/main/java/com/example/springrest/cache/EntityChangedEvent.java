@@ -0,0 +1,24 @@
+package com.example.springrest.cache;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published by the write paths after an entity changed. An empty id list means that any entity
+ * of the type may have changed.
+ */
+public record EntityChangedEvent(EntityType type, Collection<Long> ids) {
+    public enum EntityType {MOVIE, DIRECTOR}
+
+    public static EntityChangedEvent movies(Collection<Long> ids) {
+        return new EntityChangedEvent(EntityType.MOVIE, List.copyOf(ids));
+    }
+
+    public static EntityChangedEvent directors(Collection<Long> ids) {
+        return new EntityChangedEvent(EntityType.DIRECTOR, List.copyOf(ids));
+    }
+
+    public boolean isAll() {
+        return ids.isEmpty();
+    }
+}
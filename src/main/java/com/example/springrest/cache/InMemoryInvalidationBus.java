@@ -0,0 +1,35 @@
+package com.example.springrest.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/** Single-node bus: delivers events synchronously to the local subscribers only **/
+@Component
+@ConditionalOnProperty(name = "movie.cache.invalidation", havingValue = "in-memory", matchIfMissing = true)
+public class InMemoryInvalidationBus implements InvalidationBus {
+    private final List<Consumer<EntityChangedEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(EntityChangedEvent event) {
+        deliverLocally(event);
+    }
+
+    /** There are no other nodes to send to **/
+    @Override
+    public void sendInTransaction(EntityChangedEvent event) {
+    }
+
+    @Override
+    public void deliverLocally(EntityChangedEvent event) {
+        subscribers.forEach(subscriber -> subscriber.accept(event));
+    }
+
+    @Override
+    public void subscribe(Consumer<EntityChangedEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.springrest.cache;
+
+import java.util.function.Consumer;
+
+/** Delivers entity changes to the subscribers of every application node, including the publishing one **/
+public interface InvalidationBus {
+    /** Delivers the change to the local subscribers and sends it to the other nodes right away **/
+    void publish(EntityChangedEvent event);
+
+    /**
+     * Sends the change to the other nodes as part of the current transaction, so it only reaches them if that
+     * transaction commits. The local subscribers get it through {@link #deliverLocally} once it has committed.
+     */
+    void sendInTransaction(EntityChangedEvent event);
+
+    void deliverLocally(EntityChangedEvent event);
+
+    void subscribe(Consumer<EntityChangedEvent> subscriber);
+}
@@ -0,0 +1,33 @@
+package com.example.springrest.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands entity changes to the bus. Inside a transaction the other nodes are sent the change on the writing
+ * connection, so it needs no connection of its own and is delivered exactly when the transaction commits; the
+ * local subscribers get it after the commit. Changes made outside a transaction are published right away.
+ */
+@Component
+@RequiredArgsConstructor
+public class InvalidationBusRelay {
+    private final InvalidationBus invalidationBus;
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            invalidationBus.publish(event);
+            return;
+        }
+        invalidationBus.sendInTransaction(event);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidationBus.deliverLocally(event);
+            }
+        });
+    }
+}
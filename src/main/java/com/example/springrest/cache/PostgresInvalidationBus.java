@@ -0,0 +1,160 @@
+package com.example.springrest.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Multi-node bus on top of Postgres LISTEN/NOTIFY. Events are sent to the other nodes on a notification channel;
+ * a change made in a transaction is sent on the writing connection, and Postgres holds the notification back until
+ * that transaction commits. Every node keeps one connection listening on the channel, so remote changes arrive
+ * within the poll interval. When the listening connection is lost the notifications sent meanwhile are gone, so
+ * after reconnecting the local caches are cleared completely.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "movie.cache.invalidation", havingValue = "postgres")
+public class PostgresInvalidationBus implements InvalidationBus, SmartLifecycle {
+    private static final String CHANNEL = "movie_cache_invalidation";
+    /** Keeps a payload well below the 8000 bytes Postgres allows for a notification **/
+    private static final int MAX_IDS_PER_NOTIFICATION = 400;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final int pollMillis;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<EntityChangedEvent>> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private Thread listener;
+
+    public PostgresInvalidationBus(DataSource dataSource,
+                                   JdbcTemplate jdbcTemplate,
+                                   @Value("${movie.cache.invalidation.poll-millis:500}") int pollMillis) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.pollMillis = pollMillis;
+    }
+
+    /** Outside a transaction every notification is committed on its own as soon as it is sent **/
+    @Override
+    public void publish(EntityChangedEvent event) {
+        deliver(event);
+        send(event);
+    }
+
+    /** Runs on the connection of the current transaction, so it needs no second connection **/
+    @Override
+    public void sendInTransaction(EntityChangedEvent event) {
+        send(event);
+    }
+
+    @Override
+    public void deliverLocally(EntityChangedEvent event) {
+        deliver(event);
+    }
+
+    @Override
+    public void subscribe(Consumer<EntityChangedEvent> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    private void send(EntityChangedEvent event) {
+        List<Long> ids = new ArrayList<>(event.ids());
+        List<String> payloads = new ArrayList<>();
+        for (int from = 0; from < ids.size() || from == 0; from += MAX_IDS_PER_NOTIFICATION) {
+            String joined = ids.subList(from, Math.min(from + MAX_IDS_PER_NOTIFICATION, ids.size())).stream()
+                    .map(String::valueOf)
+                    .collect(Collectors.joining(","));
+            payloads.add(nodeId + "|" + event.type() + "|" + joined);
+        }
+        payloads.forEach(payload ->
+                jdbcTemplate.query("SELECT pg_notify(?, ?)", (ResultSetExtractor<Object>) rs -> null, CHANNEL, payload));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                if (reconnecting) {
+                    Arrays.stream(EntityChangedEvent.EntityType.values())
+                            .forEach(type -> deliver(new EntityChangedEvent(type, List.of())));
+                    reconnecting = false;
+                }
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollMillis);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            receive(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Cache invalidation listener lost its connection. {}", e.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(pollMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(String payload) {
+        String[] parts = payload.split("\\|", -1);
+        if (parts.length != 3 || parts[0].equals(nodeId)) {
+            return;
+        }
+        List<Long> ids = parts[2].isEmpty() ? List.of()
+                : Arrays.stream(parts[2].split(",")).map(Long::valueOf).toList();
+        deliver(new EntityChangedEvent(EntityChangedEvent.EntityType.valueOf(parts[1]), ids));
+    }
+
+    private void deliver(EntityChangedEvent event) {
+        subscribers.forEach(subscriber -> subscriber.accept(event));
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.springrest.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/** Caches are configured with spring.cache.* and invalidated through {@link com.example.springrest.cache.InvalidationBus} **/
+@Configuration
+@EnableCaching
+public class CacheConfig {
+}
@@ -0,0 +1,85 @@
+package com.example.springrest.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.query.ReturnableType;
+import org.hibernate.query.sqm.function.AbstractSqmSelfRenderingFunctionDescriptor;
+import org.hibernate.query.sqm.produce.function.StandardArgumentsValidators;
+import org.hibernate.query.sqm.produce.function.StandardFunctionArgumentTypeResolvers;
+import org.hibernate.query.sqm.produce.function.StandardFunctionReturnTypeResolvers;
+import org.hibernate.sql.ast.SqlAstTranslator;
+import org.hibernate.sql.ast.spi.SqlAppender;
+import org.hibernate.sql.ast.tree.SqlAstNode;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.util.List;
+
+/**
+ * Registers the genre filters, which take the genre_ids column followed by the requested genre ids:
+ * {@code genres_contain_all} is true when a movie has every genre, {@code genres_overlap} when it has any of them.
+ * On Postgres each is a single {@code @>} or {@code &&} against one array, which the GIN index on genre_ids serves.
+ * Other databases check the ids one by one with {@code array_contains}.
+ * <p>
+ * The ids are passed one by one rather than as an array, because Hibernate cannot bind a {@code short[]} literal.
+ */
+public class GenreFunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicType<Boolean> booleanType = functionContributions.getTypeConfiguration().getBasicTypeRegistry()
+                .resolve(StandardBasicTypes.BOOLEAN);
+        boolean postgres = functionContributions.getDialect() instanceof PostgreSQLDialect;
+
+        functionContributions.getFunctionRegistry()
+                .register("genres_contain_all", new GenreFunction("genres_contain_all", booleanType, postgres, "@>", " and "));
+        functionContributions.getFunctionRegistry()
+                .register("genres_overlap", new GenreFunction("genres_overlap", booleanType, postgres, "&&", " or "));
+    }
+
+    private static class GenreFunction extends AbstractSqmSelfRenderingFunctionDescriptor {
+        private final boolean postgres;
+        private final String arrayOperator;
+        private final String fallbackJoin;
+
+        GenreFunction(String name, BasicType<Boolean> booleanType, boolean postgres, String arrayOperator,
+                      String fallbackJoin) {
+            super(name, StandardArgumentsValidators.min(2), StandardFunctionReturnTypeResolvers.invariant(booleanType),
+                    StandardFunctionArgumentTypeResolvers.NULL);
+            this.postgres = postgres;
+            this.arrayOperator = arrayOperator;
+            this.fallbackJoin = fallbackJoin;
+        }
+
+        @Override
+        public void render(SqlAppender sqlAppender, List<? extends SqlAstNode> arguments, ReturnableType<?> returnType,
+                           SqlAstTranslator<?> walker) {
+            SqlAstNode column = arguments.get(0);
+            sqlAppender.append('(');
+            if (postgres) {
+                column.accept(walker);
+                sqlAppender.append(" " + arrayOperator + " cast(array[");
+                for (int i = 1; i < arguments.size(); i++) {
+                    if (i > 1) {
+                        sqlAppender.append(", ");
+                    }
+                    arguments.get(i).accept(walker);
+                }
+                sqlAppender.append("] as smallint[])");
+            } else {
+                for (int i = 1; i < arguments.size(); i++) {
+                    if (i > 1) {
+                        sqlAppender.append(fallbackJoin);
+                    }
+                    sqlAppender.append("array_contains(");
+                    column.accept(walker);
+                    sqlAppender.append(", ");
+                    arguments.get(i).accept(walker);
+                    sqlAppender.append(')');
+                }
+            }
+            sqlAppender.append(')');
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.springrest.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class ImportJobConfig {
+
+    /**
+     * Bounded pool for asynchronous uploads; submissions beyond the queue capacity are rejected.
+     * In virtual-thread mode the workers are virtual threads, so an import blocked on JDBC does not hold a carrier.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor importJobExecutor(@Value("${movie.import.async.workers:2}") int workers,
+                                                    @Value("${movie.import.async.queue-capacity:16}") int queueCapacity,
+                                                    Environment environment) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("movie-import-");
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("movie-import-").getVirtualThreadFactory());
+        }
+        return executor;
+    }
+
+    /**
+     * Threads for the workers of parallel uploads, shared by all of them. MovieImportService only admits an upload
+     * when all of its workers can run at once; the queue just covers a thread that is about to go back to the pool.
+     * Every worker holds a connection while it writes a chunk, so the pool never gets more than half of them.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor importWorkerExecutor(@Value("${movie.import.worker-threads:8}") int workerThreads,
+                                                       DataSource dataSource,
+                                                       Environment environment) {
+        int threads = Math.max(1, Math.min(workerThreads, ThreadingConfig.maxConnections(dataSource) / 2));
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(threads);
+        executor.setThreadNamePrefix("movie-import-worker-");
+        if (Threading.VIRTUAL.isActive(environment)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor("movie-import-worker-").getVirtualThreadFactory());
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.springrest.config;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * One Arrow root allocator for all reports; every Arrow report takes a child of it and closes the child when the
+ * report is sent, so the off-heap memory of concurrent reports is accounted and capped in one place.
+ */
+@Configuration
+public class ReportConfig {
+
+    @Bean
+    public BufferAllocator reportAllocator(@Value("${movie.report.arrow.max-memory:268435456}") long maxMemory) {
+        return new RootAllocator(maxMemory);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.springrest.config;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+/**
+ * Registers the functions behind the movie search. Both take a column and an already lower-cased query.
+ * <ul>
+ *     <li>{@code search_similar} is true for typo-tolerant matches. On Postgres it is the pg_trgm word similarity
+ *     operator, which the trigram GIN indexes serve. Other databases fall back to comparing soundex codes.</li>
+ *     <li>{@code search_score} ranks matches from 0 to 2: exact and prefix matches get a bonus on top of the
+ *     similarity, so "matrix" ranks "Matrix" above "The Matrix Reloaded".</li>
+ * </ul>
+ */
+public class SearchFunctionContributor implements FunctionContributor {
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicTypeRegistry types = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+        boolean postgres = functionContributions.getDialect() instanceof PostgreSQLDialect;
+
+        String similar = postgres
+                ? "(?2 <% lower(?1))"
+                : "(soundex(?1) = soundex(?2))";
+        String similarity = postgres
+                ? "word_similarity(?2, lower(?1))"
+                : "(case when soundex(?1) = soundex(?2) then 0.5 else 0 end)";
+        String score = "(case when lower(?1) = ?2 then 1 when lower(?1) like ?2 || '%' then 0.5 else 0 end + "
+                + similarity + ")";
+
+        functionContributions.getFunctionRegistry()
+                .registerPattern("search_similar", similar, types.resolve(StandardBasicTypes.BOOLEAN));
+        functionContributions.getFunctionRegistry()
+                .registerPattern("search_score", score, types.resolve(StandardBasicTypes.DOUBLE));
+    }
+}
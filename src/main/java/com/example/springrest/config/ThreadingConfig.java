@@ -0,0 +1,70 @@
+package com.example.springrest.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Virtual-thread mode, enabled with {@code spring.threads.virtual.enabled=true} on Java 21. Spring Boot then serves
+ * requests on virtual threads, the import workers become virtual as well (see {@link ImportJobConfig}) and the
+ * data source is guarded by a {@link ConnectionLimitingDataSource}. The guard can also be switched on for platform
+ * threads with {@code movie.datasource.limit-connections=true}.
+ */
+@Configuration
+public class ThreadingConfig {
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource
+                        || !limitConnections(environment)) {
+                    return bean;
+                }
+                Binder binder = Binder.get(environment);
+                int maxConnections = binder.bind("movie.datasource.max-connections", Integer.class)
+                        .orElse(maxConnections(dataSource));
+                Duration acquireTimeout = binder.bind("movie.datasource.acquire-timeout", Duration.class)
+                        .orElse(Duration.ofSeconds(30));
+                return new ConnectionLimitingDataSource(dataSource, maxConnections, acquireTimeout);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder connectionLimitMetrics(DataSource dataSource) {
+        return registry -> {
+            if (dataSource instanceof ConnectionLimitingDataSource limited) {
+                Gauge.builder("movie.datasource.connections.waiting", limited, ConnectionLimitingDataSource::getWaiting)
+                        .description("Threads waiting for a database connection")
+                        .register(registry);
+            }
+        };
+    }
+
+    /** Connections the data source hands out at once: the permits of the guard, otherwise the pool size **/
+    public static int maxConnections(DataSource dataSource) {
+        if (dataSource instanceof ConnectionLimitingDataSource limited) {
+            return limited.getMaxConnections();
+        }
+        // Hikari reports -1 until the pool starts when its default size is used
+        return dataSource instanceof HikariDataSource hikari && hikari.getMaximumPoolSize() > 0
+                ? hikari.getMaximumPoolSize() : DEFAULT_POOL_SIZE;
+    }
+
+    private static boolean limitConnections(Environment environment) {
+        return Threading.VIRTUAL.isActive(environment)
+                || environment.getProperty("movie.datasource.limit-connections", Boolean.class, false);
+    }
+}
@@ -3,6 +3,7 @@ package com.example.springrest.controller;
 import com.example.springrest.dto.RestResponse;
 import com.example.springrest.model.Director;
 import com.example.springrest.service.DirectorService;
+import com.example.springrest.service.SuggestionService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -16,6 +17,7 @@ import java.util.Map;
 @RequestMapping("/api/director")
 public class DirectorController {
     private final DirectorService directorService;
+    private final SuggestionService suggestionService;
 
     @GetMapping
     public ResponseEntity<?> getAllDirectors() {
@@ -23,6 +25,11 @@ public class DirectorController {
         return ResponseEntity.ok(directors);
     }
 
+    @GetMapping("/_suggest")
+    public ResponseEntity<?> suggestDirectors(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(suggestionService.suggestDirectors(q, limit));
+    }
+
     @PostMapping
     public ResponseEntity<?> addNewDirector(@RequestBody Map<String, String> request) {
         String name = request.get("name");
@@ -1,23 +1,31 @@
 package com.example.springrest.controller;
 
 import com.example.springrest.dto.*;
+import com.example.springrest.service.ImportJobService;
 import com.example.springrest.service.MovieService;
+import com.example.springrest.service.MovieStatsService;
+import com.example.springrest.service.SuggestionService;
+import com.example.springrest.service.report.ReportContent;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+
 
 @RestController
 @RequestMapping("/api/movie")
 @RequiredArgsConstructor
 public class MovieController {
     private final MovieService movieService;
+    private final ImportJobService importJobService;
+    private final SuggestionService suggestionService;
+    private final MovieStatsService movieStatsService;
 
     @PostMapping
     public ResponseEntity<?> addMovie(@Valid @RequestBody MovieCreateDTO movieCreateDTO) {
@@ -43,22 +51,47 @@ public class MovieController {
         return ResponseEntity.ok("Deleted!");
     }
 
+    @PostMapping("/_bulk")
+    public ResponseEntity<?> bulk(@RequestBody List<MovieBulkOperationDTO> operations) {
+        return ResponseEntity.ok(movieService.bulk(operations));
+    }
+
+    @GetMapping("/_suggest")
+    public ResponseEntity<?> suggestMovies(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(suggestionService.suggestMovies(q, limit));
+    }
+
+    @GetMapping("/_stats")
+    public ResponseEntity<?> getStats(@RequestParam String by, @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(movieStatsService.getStats(by, limit));
+    }
+
     @PostMapping("/_list")
     public ResponseEntity<?> findMoviesByQuery(@RequestBody MovieQueryListDTO dto) {
-        Page<MovieInfoDTO> pages = movieService.findMoviesByQuery(dto);
-        return ResponseEntity.ok(new MovieResponseListDTO(pages.getContent(), pages.getTotalPages()));
+        return ResponseEntity.ok(movieService.findMoviesByQuery(dto));
     }
 
-    @PostMapping(value = "/_report", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
-    public void generateReport(@RequestBody MovieQueryDTO dto, HttpServletResponse response) {
-        movieService.generateReport(dto, response);
+    @PostMapping("/_report")
+    public void generateReport(@RequestBody MovieQueryDTO dto, @RequestHeader HttpHeaders headers,
+                               HttpServletResponse response) {
+        movieService.generateReport(dto, ReportContent.negotiate(headers), response);
     }
 
     @PostMapping("/upload")
-    public ResponseEntity<?> uploadMovies(@RequestParam("file") MultipartFile file) {
+    public ResponseEntity<?> uploadMovies(@RequestParam("file") MultipartFile file,
+                                          @RequestParam(value = "async", defaultValue = "false") boolean async) {
+        if (async) {
+            ImportJobDTO job = importJobService.submit(file);
+            return ResponseEntity.accepted().body(job);
+        }
         MovieUploadResponseDTO result = movieService.uploadMovies(file);
         return result.imported() > 0
                 ? ResponseEntity.status(HttpStatus.CREATED).body(result)
                 : ResponseEntity.ok().body(result);
     }
+
+    @GetMapping("/upload/{jobId}")
+    public ResponseEntity<?> getUploadJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(importJobService.getJob(jobId));
+    }
 }
@@ -0,0 +1,8 @@
+package com.example.springrest.dto;
+
+/** What an operation of a bulk request does with a movie **/
+public enum BulkAction {
+    CREATE,
+    UPDATE,
+    DELETE
+}
@@ -0,0 +1,7 @@
+package com.example.springrest.dto;
+
+/** How a genre filter with several genres is applied: the movie has all of them or at least one of them **/
+public enum GenreMatch {
+    ALL,
+    ANY
+}
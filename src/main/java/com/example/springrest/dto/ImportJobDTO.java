@@ -0,0 +1,12 @@
+package com.example.springrest.dto;
+
+public record ImportJobDTO(String jobId,
+                           String status,
+                           long processed,
+                           int imported,
+                           int alreadyExists,
+                           int failed,
+                           Double rowsPerSecond,
+                           Long etaSeconds,
+                           String error) {
+}
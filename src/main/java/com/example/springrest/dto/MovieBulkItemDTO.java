@@ -0,0 +1,8 @@
+package com.example.springrest.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/** Outcome of one bulk operation, with the HTTP status it would have had as a single request **/
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MovieBulkItemDTO(int status, Long id, String error) {
+}
@@ -0,0 +1,11 @@
+package com.example.springrest.dto;
+
+import java.util.Set;
+
+/**
+ * One operation of a bulk request. CREATE takes the fields of {@link MovieCreateDTO}, UPDATE the {@code id} and
+ * the fields to change like {@link MovieUpdateDTO}, DELETE only the {@code id}.
+ */
+public record MovieBulkOperationDTO(BulkAction action, Long id, String title, Integer year, Set<String> genre,
+                                    String director) {
+}
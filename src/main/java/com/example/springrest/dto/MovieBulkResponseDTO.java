@@ -0,0 +1,7 @@
+package com.example.springrest.dto;
+
+import java.util.List;
+
+/** Items are in the order of the operations; {@code errors} tells whether any of them failed **/
+public record MovieBulkResponseDTO(boolean errors, List<MovieBulkItemDTO> items) {
+}
@@ -1,3 +1,3 @@
 package com.example.springrest.dto;
 
-public record MovieInfoDTO(String title, int year, String genre, String director) {}
+public record MovieInfoDTO(String title, int year, String genre, String directorName) {}
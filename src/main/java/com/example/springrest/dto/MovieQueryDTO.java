@@ -2,5 +2,6 @@ package com.example.springrest.dto;
 
 import java.util.Set;
 
-public record MovieQueryDTO(String title, int year, Set<String> genre, String director) {
+public record MovieQueryDTO(String title, int year, Set<String> genre, GenreMatch genreMatch, String director,
+                            String search) {
 }
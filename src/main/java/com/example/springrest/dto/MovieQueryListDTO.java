@@ -1,12 +1,19 @@
 package com.example.springrest.dto;
 
-import jakarta.validation.constraints.Min;
-
 import java.util.Set;
 
+/**
+ * Offset paging uses {@code page} and {@code size}. Sending a {@code cursor} (empty for the first page)
+ * switches to keyset paging, where {@code page} is ignored and the total is only counted on request.
+ * A {@code search} orders the results by relevance, so it can only be paged by offset.
+ */
 public record MovieQueryListDTO(String title,
                                 int year,
                                 Set<String> genre,
+                                GenreMatch genreMatch,
                                 String director,
+                                String search,
                                 int page,
-                                int size) {}
+                                int size,
+                                String cursor,
+                                Boolean countTotal) {}
@@ -1,8 +1,9 @@
 package com.example.springrest.dto;
 
-import com.example.springrest.model.Movie;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 import java.util.List;
 
-public record MovieResponseListDTO(List<MovieInfoDTO> list, int totalPages) {
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MovieResponseListDTO(List<MovieInfoDTO> list, Integer totalPages, String nextCursor) {
 }
@@ -0,0 +1,6 @@
+package com.example.springrest.dto;
+
+import java.util.List;
+
+public record MovieStatsDTO(String by, long total, List<MovieStatsGroupDTO> groups) {
+}
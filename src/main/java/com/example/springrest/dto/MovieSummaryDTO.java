@@ -0,0 +1,7 @@
+package com.example.springrest.dto;
+
+import java.util.Set;
+
+/** Flat read model of a movie, loaded with a fixed number of statements regardless of the number of rows **/
+public record MovieSummaryDTO(Long id, String title, int year, Set<String> genre, String directorName) {
+}
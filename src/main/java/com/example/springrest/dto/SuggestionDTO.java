@@ -0,0 +1,4 @@
+package com.example.springrest.dto;
+
+public record SuggestionDTO(Long id, String text) {
+}
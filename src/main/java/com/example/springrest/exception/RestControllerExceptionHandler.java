@@ -2,13 +2,20 @@ package com.example.springrest.exception;
 
 import jakarta.persistence.EntityExistsException;
 import jakarta.persistence.EntityNotFoundException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.sql.SQLException;
+
 @RestControllerAdvice
 public class RestControllerExceptionHandler {
+    private static final String UNIQUE_VIOLATION = "23505";
 
     @ExceptionHandler(IllegalArgumentException.class)
     protected ResponseEntity<?> handleIllegalArgumentException(IllegalArgumentException e) {
@@ -25,4 +32,36 @@ public class RestControllerExceptionHandler {
     protected ResponseEntity<?> handleEntityExistsException(EntityExistsException e) {
         return ResponseEntity.status(HttpStatus.CONFLICT.value()).body("Entity already exists.");
     }
+
+    /**
+     * A unique constraint caught a concurrent write that the existence checks let through. Any other violation,
+     * such as a missing reference or a null column, is a request the database cannot store.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    protected ResponseEntity<?> handleDataIntegrityViolationException(DataIntegrityViolationException e) {
+        if (isUniqueViolation(e)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT.value()).body("Entity already exists.");
+        }
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST.value()).body("Wrong arguments. Data integrity violation.");
+    }
+
+    @ExceptionHandler(TaskRejectedException.class)
+    protected ResponseEntity<?> handleTaskRejectedException(TaskRejectedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE.value()).body("Too many uploads in progress. Try again later.");
+    }
+
+    /** Both Postgres and H2 report a unique violation with SQLState 23505 **/
+    private static boolean isUniqueViolation(DataIntegrityViolationException e) {
+        if (e instanceof DuplicateKeyException) {
+            return true;
+        }
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            String sqlState = cause instanceof ConstraintViolationException violation ? violation.getSQLState()
+                    : cause instanceof SQLException sqlException ? sqlException.getSQLState() : null;
+            if (UNIQUE_VIOLATION.equals(sqlState)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,31 @@
+package com.example.springrest.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a count is open.
+ * Statements outside {@link #begin()} and {@link #end()}, such as those of background imports, are not counted.
+ */
+public class StatementCountingInspector implements StatementInspector {
+    private static final ThreadLocal<long[]> COUNT = new ThreadLocal<>();
+
+    public static void begin() {
+        COUNT.set(new long[1]);
+    }
+
+    /** Closes the count of the current thread and returns it **/
+    public static long end() {
+        long[] count = COUNT.get();
+        COUNT.remove();
+        return count != null ? count[0] : 0;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        long[] count = COUNT.get();
+        if (count != null) {
+            count[0]++;
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.springrest.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/** Asynchronous upload of a spooled file. Progress is committed together with every imported chunk **/
+@Entity
+@Table(name = "Import_Job")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ImportJob {
+    public enum Status {QUEUED, RUNNING, COMPLETED, FAILED}
+
+    /** Length of the error column **/
+    public static final int MAX_ERROR_LENGTH = 1024;
+
+    @Id
+    private String id;
+    private String filePath;
+    @Enumerated(EnumType.STRING)
+    private Status status;
+    private long bytesTotal;
+    private long bytesRead;
+    private long processed;
+    private int imported;
+    private int alreadyExists;
+    private int failed;
+    private long processedAtStart;
+    private long bytesAtStart;
+    @Column(length = MAX_ERROR_LENGTH)
+    private String error;
+    private Instant createdAt;
+    private Instant startedAt;
+    private Instant updatedAt;
+
+    public ImportJob(String id, String filePath, long bytesTotal) {
+        this.id = id;
+        this.filePath = filePath;
+        this.bytesTotal = bytesTotal;
+        this.status = Status.QUEUED;
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportJob{" +
+                "id='" + id + '\'' +
+                ", status=" + status +
+                ", processed=" + processed +
+                '}';
+    }
+}
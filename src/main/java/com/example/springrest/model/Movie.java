@@ -3,10 +3,11 @@ package com.example.springrest.model;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Objects;
-import java.util.Set;
 
 /** Main entity **/
 
@@ -15,24 +16,29 @@ import java.util.Set;
 @Setter
 @NoArgsConstructor
 public class Movie {
+    public static final String ID_SEQUENCE = "movie_seq";
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
     private String title;
 
     @Column(name = "pub_year")
     private int year;
-    @ElementCollection
-    @CollectionTable(name = "Movie_Genre", joinColumns = @JoinColumn(name = "movie_id"))
-    private Set<String> genre = new HashSet<>();
+    /** Sorted ids from the genre dictionary, GIN-indexed for genre filters **/
+    @JdbcTypeCode(SqlTypes.ARRAY)
+    @Column(name = "genre_ids")
+    private short[] genreIds = new short[0];
     @ManyToOne
     private Director director;
 
 
-    public Movie(String title, int year, Set<String> genre, Director director) {
+    public Movie(String title, int year, short[] genreIds, Director director) {
         this.title = title;
         this.year = year;
-        this.genre = genre;
+        this.genreIds = genreIds;
         this.director = director;
     }
 
@@ -41,7 +47,7 @@ public class Movie {
         return "Movie{" +
                 "title='" + title + '\'' +
                 ", year=" + year +
-                ", genre=" + genre +
+                ", genreIds=" + Arrays.toString(genreIds) +
                 ", director='" + director + '\'' +
                 '}';
     }
@@ -2,13 +2,27 @@ package com.example.springrest.repository;
 
 import com.example.springrest.model.Director;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface DirectorRepository extends JpaRepository<Director, Long> {
     Optional<Director> findByName(String name);
 
+    List<Director> findByNameIn(Collection<String> names);
+
     boolean existsByName(String name);
+
+    /** Returns [id, name] pairs of all directors. Must be consumed inside a transaction **/
+    @Query("select d.id, d.name from Director d")
+    Stream<Object[]> streamIdsAndNames();
+
+    @Query("select d.id, d.name from Director d where d.id in :ids")
+    List<Object[]> findIdsAndNames(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,47 @@
+package com.example.springrest.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/** The genre dictionary table. Genres are only ever added, so an id keeps its name for good **/
+@Repository
+public class GenreRepository {
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public GenreRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    public Map<Short, String> findAll() {
+        Map<Short, String> genres = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM Genre", rs -> {
+            genres.put(rs.getShort(1), rs.getString(2));
+        });
+        return genres;
+    }
+
+    public Map<String, Short> findIdsByNames(Collection<String> names) {
+        Map<String, Short> ids = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT id, name FROM Genre WHERE name IN (:names)", Map.of("names", names),
+                rs -> {
+                    ids.put(rs.getString(2), rs.getShort(1));
+                });
+        return ids;
+    }
+
+    public int findMaxId() {
+        Integer max = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM Genre", Integer.class);
+        return max != null ? max : 0;
+    }
+
+    public void insert(short id, String name) {
+        jdbcTemplate.update("INSERT INTO Genre (id, name) VALUES (?, ?)", id, name);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.springrest.repository;
+
+import com.example.springrest.model.ImportJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ImportJobRepository extends JpaRepository<ImportJob, String> {
+    List<ImportJob> findByStatusIn(Collection<ImportJob.Status> statuses);
+}
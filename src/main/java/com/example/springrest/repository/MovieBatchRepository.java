@@ -0,0 +1,125 @@
+package com.example.springrest.repository;
+
+import com.example.springrest.model.Movie;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Plain JDBC writes for new movies, batched for bulk imports. Ids come from the same pooled-lo sequence Hibernate uses
+ * for {@link Movie}, so rows written here and through JPA never collide.
+ * <p>
+ * Inserts skip movies whose title and director already exist, relying on the unique key instead of a lookup
+ * before the write. Postgres does it with {@code ON CONFLICT DO NOTHING RETURNING id}, one statement per call;
+ * other databases get a batch of guarded inserts and report the skipped rows through the update counts.
+ */
+@Repository
+public class MovieBatchRepository {
+    private static final String UPSERT_MOVIES = "INSERT INTO Movie (id, title, pub_year, director_id, genre_ids) VALUES %s "
+            + "ON CONFLICT (title, director_id) DO NOTHING RETURNING id";
+    private static final String INSERT_MOVIE_IF_ABSENT = "INSERT INTO Movie (id, title, pub_year, director_id, genre_ids) "
+            + "SELECT ?, ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM Movie WHERE title = ? AND director_id = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextIdBlockQuery;
+    private final boolean onConflictSupported;
+
+    /** Guards the block; a lock rather than a monitor, so fetching the next block does not pin a virtual thread **/
+    private final Lock idLock = new ReentrantLock();
+    /** Current block of the sequence, handed out the way Hibernate's pooled-lo optimizer does **/
+    private long nextId;
+    private long blockEnd;
+
+    public MovieBatchRepository(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        this.nextIdBlockQuery = dialect.getSequenceSupport().getSequenceNextValString(Movie.ID_SEQUENCE);
+        this.onConflictSupported = dialect instanceof PostgreSQLDialect;
+    }
+
+    /**
+     * Assigns ids to the movies and inserts the ones that do not exist yet.
+     * Returns the inserted movies; the others keep an id that was never written.
+     */
+    @Transactional
+    public List<Movie> insertNew(List<Movie> movies) {
+        if (movies.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = allocateIds(movies.size());
+        for (int i = 0; i < movies.size(); i++) {
+            movies.get(i).setId(ids.get(i));
+        }
+
+        return onConflictSupported ? upsert(movies) : insertIfAbsent(movies);
+    }
+
+    /** One multi-row statement; batched update counts are not reliable with {@code reWriteBatchedInserts} **/
+    private List<Movie> upsert(List<Movie> movies) {
+        String values = movies.stream().map(movie -> "(?, ?, ?, ?, ?)").collect(Collectors.joining(", "));
+        Set<Long> insertedIds = new HashSet<>(jdbcTemplate.query(UPSERT_MOVIES.formatted(values), ps -> {
+            int index = 1;
+            for (Movie movie : movies) {
+                ps.setLong(index++, movie.getId());
+                ps.setString(index++, movie.getTitle());
+                ps.setInt(index++, movie.getYear());
+                ps.setLong(index++, movie.getDirector().getId());
+                ps.setArray(index++, ps.getConnection().createArrayOf("smallint", boxed(movie.getGenreIds())));
+            }
+        }, (rs, rowNum) -> rs.getLong(1)));
+        return movies.stream().filter(movie -> insertedIds.contains(movie.getId())).toList();
+    }
+
+    private List<Movie> insertIfAbsent(List<Movie> movies) {
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_MOVIE_IF_ABSENT, movies, movies.size(), (ps, movie) -> {
+            ps.setLong(1, movie.getId());
+            ps.setString(2, movie.getTitle());
+            ps.setInt(3, movie.getYear());
+            ps.setLong(4, movie.getDirector().getId());
+            ps.setArray(5, ps.getConnection().createArrayOf("smallint", boxed(movie.getGenreIds())));
+            ps.setString(6, movie.getTitle());
+            ps.setLong(7, movie.getDirector().getId());
+        });
+        List<Movie> inserted = new ArrayList<>(movies.size());
+        for (int i = 0; i < movies.size(); i++) {
+            if (counts[0][i] != 0) {
+                inserted.add(movies.get(i));
+            }
+        }
+        return inserted;
+    }
+
+    private static Short[] boxed(short[] values) {
+        Short[] boxed = new Short[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = values[i];
+        }
+        return boxed;
+    }
+
+    private List<Long> allocateIds(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        idLock.lock();
+        try {
+            while (ids.size() < count) {
+                if (nextId == blockEnd) {
+                    nextId = jdbcTemplate.queryForObject(nextIdBlockQuery, Long.class);
+                    blockEnd = nextId + Movie.ID_ALLOCATION_SIZE;
+                }
+                ids.add(nextId++);
+            }
+        } finally {
+            idLock.unlock();
+        }
+        return ids;
+    }
+}
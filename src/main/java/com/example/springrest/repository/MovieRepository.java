@@ -1,13 +1,44 @@
 package com.example.springrest.repository;
 
-import com.example.springrest.model.Director;
 import com.example.springrest.model.Movie;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface MovieRepository extends JpaRepository<Movie, Long>, JpaSpecificationExecutor<Movie> {
+public interface MovieRepository extends JpaRepository<Movie, Long>, JpaSpecificationExecutor<Movie>,
+        MovieRepositoryCustom {
     Optional<Movie> findByTitleAndDirector_Name(String title, String directorName);
     boolean existsByTitleAndDirector_Name(String title, String directorName);
+
+    /** Loads the movies with their directors in one statement **/
+    @Query("select m from Movie m left join fetch m.director where m.id in :ids")
+    List<Movie> findWithDirectorByIdIn(@Param("ids") Collection<Long> ids);
+
+    /** Returns [id, title, director id] of the movies with any of these titles **/
+    @Query("select m.id, m.title, m.director.id from Movie m where m.title in :titles")
+    List<Object[]> findKeysByTitleIn(@Param("titles") Collection<String> titles);
+
+    @Query("select m.id from Movie m where m.director.id = :directorId")
+    List<Long> findIdsByDirectorId(@Param("directorId") Long directorId);
+
+    /** Returns [id, title] pairs of all movies. Must be consumed inside a transaction **/
+    @Query("select m.id, m.title from Movie m")
+    Stream<Object[]> streamIdsAndTitles();
+
+    @Query("select m.id, m.title from Movie m where m.id in :ids")
+    List<Object[]> findIdsAndTitles(@Param("ids") Collection<Long> ids);
+
+    /** Returns [id, title, year, genre ids, director id, director name] of all movies. Must be consumed inside a transaction **/
+    @Query("select m.id, m.title, m.year, m.genreIds, d.id, d.name from Movie m left join m.director d")
+    Stream<Object[]> streamCatalogRows();
+
+    @Query("select m.id, m.title, m.year, m.genreIds, d.id, d.name from Movie m left join m.director d where m.id in :ids")
+    List<Object[]> findCatalogRows(@Param("ids") Collection<Long> ids);
+
 }
@@ -0,0 +1,24 @@
+package com.example.springrest.repository;
+
+import com.example.springrest.dto.MovieSummaryDTO;
+import com.example.springrest.model.Movie;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface MovieRepositoryCustom {
+    /**
+     * Loads a page of matching movies with one statement, joined with their director. Genre names come from
+     * the genre dictionary. Rows keep any ordering the specification applies and are then ordered by id.
+     * When {@code afterId} is set the page starts right after that id instead of skipping {@code offset} rows.
+     */
+    List<MovieSummaryDTO> findSummaries(Specification<Movie> specification, Long afterId, long offset, int limit);
+
+    /**
+     * Streams matching movies, ordered like {@link #findSummaries}, through a forward-only cursor with a
+     * single statement. Rows are scalar projections, so nothing accumulates in the persistence context.
+     * Must be called inside a transaction and the stream must be closed by the caller.
+     */
+    Stream<MovieSummaryDTO> streamSummaries(Specification<Movie> specification, int fetchSize);
+}
@@ -0,0 +1,75 @@
+package com.example.springrest.repository;
+
+import com.example.springrest.dto.MovieSummaryDTO;
+import com.example.springrest.model.Director;
+import com.example.springrest.model.Movie;
+import com.example.springrest.service.GenreDictionary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+public class MovieRepositoryCustomImpl implements MovieRepositoryCustom {
+    private final EntityManager entityManager;
+    private final GenreDictionary genreDictionary;
+
+    @Override
+    public List<MovieSummaryDTO> findSummaries(Specification<Movie> specification, Long afterId, long offset, int limit) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Movie> root = query.from(Movie.class);
+        Join<Movie, Director> director = root.join("director", JoinType.LEFT);
+
+        Predicate predicate = specification.toPredicate(root, query, criteriaBuilder);
+        if (afterId != null) {
+            predicate = criteriaBuilder.and(predicate, criteriaBuilder.greaterThan(root.get("id"), afterId));
+        }
+        query.multiselect(root.get("id"), root.get("title"), root.get("year"), root.get("genreIds"), director.get("name"))
+                .where(predicate)
+                .orderBy(orderById(query, root, criteriaBuilder));
+
+        return entityManager.createQuery(query)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(this::toSummary)
+                .toList();
+    }
+
+    @Override
+    public Stream<MovieSummaryDTO> streamSummaries(Specification<Movie> specification, int fetchSize) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = criteriaBuilder.createTupleQuery();
+        Root<Movie> root = query.from(Movie.class);
+        Join<Movie, Director> director = root.join("director", JoinType.LEFT);
+        query.multiselect(root.get("id"), root.get("title"), root.get("year"), root.get("genreIds"), director.get("name"))
+                .where(specification.toPredicate(root, query, criteriaBuilder))
+                .orderBy(orderById(query, root, criteriaBuilder));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(this::toSummary);
+    }
+
+    /** Keeps the ordering a specification has applied, such as search relevance, and breaks ties by id **/
+    private static List<Order> orderById(CriteriaQuery<?> query, Root<Movie> root, CriteriaBuilder criteriaBuilder) {
+        List<Order> orders = new ArrayList<>(query.getOrderList());
+        orders.add(criteriaBuilder.asc(root.get("id")));
+        return orders;
+    }
+
+    private MovieSummaryDTO toSummary(Tuple row) {
+        return new MovieSummaryDTO(row.get(0, Long.class), row.get(1, String.class), row.get(2, Integer.class),
+                genreDictionary.names(row.get(3, short[].class)), row.get(4, String.class));
+    }
+}
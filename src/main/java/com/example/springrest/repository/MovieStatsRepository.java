@@ -0,0 +1,124 @@
+package com.example.springrest.repository;
+
+import com.example.springrest.dto.MovieStatsGroupDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Movie counts per genre, year and director in small aggregate tables. Changes are added as deltas with
+ * one batched {@code ON CONFLICT DO UPDATE} on Postgres. Other databases update the counter and insert it
+ * when it is missing, retrying the update when a concurrent writer inserted it first.
+ */
+@Repository
+public class MovieStatsRepository {
+    private static final String POSTGRES_UPSERT = "INSERT INTO %1$s (%2$s, movies) VALUES (?, ?) "
+            + "ON CONFLICT (%2$s) DO UPDATE SET movies = %1$s.movies + EXCLUDED.movies";
+    private static final String INCREMENT = "UPDATE %1$s SET movies = movies + ? WHERE %2$s = ?";
+    private static final String INSERT = "INSERT INTO %1$s (%2$s, movies) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean onConflictSupported;
+
+    public MovieStatsRepository(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.onConflictSupported = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+
+    public enum Dimension {
+        GENRE("Genre_Stats", "genre_id", Short.class,
+                "SELECT g.id, COUNT(*) FROM Genre g JOIN Movie m ON g.id = ANY(m.genre_ids) GROUP BY g.id",
+                "SELECT g.id, COUNT(*) FROM Genre g JOIN Movie m ON g.id = ANY(m.genre_ids) "
+                        + "WHERE m.director_id = ? GROUP BY g.id",
+                "SELECT g.name, s.movies FROM Genre_Stats s JOIN Genre g ON g.id = s.genre_id "
+                        + "WHERE s.movies > 0 ORDER BY s.movies DESC, g.name LIMIT ?"),
+        YEAR("Year_Stats", "pub_year", Integer.class,
+                "SELECT pub_year, COUNT(*) FROM Movie GROUP BY pub_year",
+                "SELECT pub_year, COUNT(*) FROM Movie WHERE director_id = ? GROUP BY pub_year",
+                "SELECT pub_year, movies FROM Year_Stats WHERE movies > 0 ORDER BY movies DESC, pub_year LIMIT ?"),
+        DIRECTOR("Director_Stats", "director_id", Long.class,
+                "SELECT director_id, COUNT(*) FROM Movie WHERE director_id IS NOT NULL GROUP BY director_id",
+                "SELECT director_id, COUNT(*) FROM Movie WHERE director_id = ? GROUP BY director_id",
+                "SELECT d.name, s.movies FROM Director_Stats s JOIN Director d ON d.id = s.director_id "
+                        + "WHERE s.movies > 0 ORDER BY s.movies DESC, d.name LIMIT ?");
+
+        private final String table;
+        private final String column;
+        private final Class<?> keyType;
+        private final String aggregate;
+        private final String byDirector;
+        private final String top;
+
+        Dimension(String table, String column, Class<?> keyType, String aggregate, String byDirector, String top) {
+            this.table = table;
+            this.column = column;
+            this.keyType = keyType;
+            this.aggregate = aggregate;
+            this.byDirector = byDirector;
+            this.top = top;
+        }
+    }
+
+    /** Adds the deltas to the counters of their groups, creating missing groups **/
+    public void add(Dimension dimension, Map<?, Long> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        if (onConflictSupported) {
+            List<Map.Entry<?, Long>> rows = new ArrayList<>(deltas.entrySet());
+            jdbcTemplate.batchUpdate(POSTGRES_UPSERT.formatted(dimension.table, dimension.column), rows, rows.size(),
+                    (ps, row) -> {
+                        ps.setObject(1, row.getKey());
+                        ps.setLong(2, row.getValue());
+                    });
+            return;
+        }
+        String increment = INCREMENT.formatted(dimension.table, dimension.column);
+        String insert = INSERT.formatted(dimension.table, dimension.column);
+        deltas.forEach((key, delta) -> {
+            if (jdbcTemplate.update(increment, delta, key) == 0) {
+                try {
+                    jdbcTemplate.update(insert, key, delta);
+                } catch (DuplicateKeyException e) {
+                    jdbcTemplate.update(increment, delta, key);
+                }
+            }
+        });
+    }
+
+    /** Movies of a director per group of the dimension, keyed like the counters **/
+    public Map<Object, Long> countByDirector(Dimension dimension, Long directorId) {
+        Map<Object, Long> counts = new HashMap<>();
+        jdbcTemplate.query(dimension.byDirector, rs -> {
+            counts.put(rs.getObject(1, dimension.keyType), rs.getLong(2));
+        }, directorId);
+        return counts;
+    }
+
+    public List<MovieStatsGroupDTO> findTop(Dimension dimension, int limit) {
+        return jdbcTemplate.query(dimension.top, (rs, rowNum) -> new MovieStatsGroupDTO(rs.getString(1), rs.getLong(2)),
+                limit);
+    }
+
+    /** Every movie has a year, so the year counters add up to the size of the catalog **/
+    public long countMovies() {
+        Long total = jdbcTemplate.queryForObject("SELECT COALESCE(SUM(movies), 0) FROM Year_Stats", Long.class);
+        return total != null ? total : 0;
+    }
+
+    /** Recomputes the counters of a dimension from the catalog **/
+    public void rebuild(Dimension dimension) {
+        jdbcTemplate.update("DELETE FROM " + dimension.table);
+        jdbcTemplate.update("INSERT INTO %s (%s, movies) %s".formatted(dimension.table, dimension.column,
+                dimension.aggregate));
+    }
+}
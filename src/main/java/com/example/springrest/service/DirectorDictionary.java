@@ -0,0 +1,205 @@
+package com.example.springrest.service;
+
+import com.example.springrest.cache.EntityChangedEvent;
+import com.example.springrest.cache.InvalidationBus;
+import com.example.springrest.model.Director;
+import com.example.springrest.repository.DirectorRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+/**
+ * Name to id dictionary of all directors, so resolving the director of a movie does not query the database.
+ * It is loaded when the application starts and follows the changes delivered by the invalidation bus.
+ * A missing name is created by exactly one caller while concurrent callers wait for it; the unique
+ * constraint on the name settles races with other nodes.
+ */
+@Service
+public class DirectorDictionary {
+    private static final int REFRESH_BATCH_SIZE = 1000;
+
+    private final DirectorRepository directorRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate readOnly;
+    private final TransactionTemplate requiresNew;
+
+    private volatile Map<String, Long> idsByName = new ConcurrentHashMap<>();
+    private volatile Map<Long, String> namesById = new ConcurrentHashMap<>();
+    /** Names being inserted right now, completed with the new id **/
+    private final Map<String, CompletableFuture<Long>> creating = new ConcurrentHashMap<>();
+    /** Ids changed while a reload is reading the table, replayed on the new maps once they are in place **/
+    private volatile Queue<Long> changedDuringReload;
+
+    public DirectorDictionary(DirectorRepository directorRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager,
+                              InvalidationBus invalidationBus) {
+        this.directorRepository = directorRepository;
+        this.eventPublisher = eventPublisher;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        invalidationBus.subscribe(this::apply);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        Queue<Long> changed = new ConcurrentLinkedQueue<>();
+        changedDuringReload = changed;
+        Map<String, Long> ids = new ConcurrentHashMap<>();
+        Map<Long, String> names = new ConcurrentHashMap<>();
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = directorRepository.streamIdsAndNames()) {
+                rows.forEach(row -> {
+                    ids.put((String) row[1], (Long) row[0]);
+                    names.put((Long) row[0], (String) row[1]);
+                });
+            }
+        });
+        synchronized (this) {
+            idsByName = ids;
+            namesById = names;
+        }
+        changedDuringReload = null;
+        if (!changed.isEmpty()) {
+            refresh(new HashSet<>(changed));
+        }
+    }
+
+    /**
+     * Returns the director with this name, creating it when it does not exist yet. The entity is not managed;
+     * it carries the id and the name, which is all a movie needs to reference it.
+     */
+    public Director resolve(String name) {
+        return resolveAll(List.of(name)).get(name);
+    }
+
+    /** Resolves a batch of names, inserting all missing ones in one transaction **/
+    public Map<String, Director> resolveAll(Collection<String> names) {
+        Map<String, Long> resolved = new HashMap<>();
+        Map<String, CompletableFuture<Long>> waiting = new HashMap<>();
+        Map<String, CompletableFuture<Long>> claimed = new HashMap<>();
+        for (String name : names) {
+            if (resolved.containsKey(name) || waiting.containsKey(name)) {
+                continue;
+            }
+            Long id = idsByName.get(name);
+            if (id != null) {
+                resolved.put(name, id);
+                continue;
+            }
+            CompletableFuture<Long> future = new CompletableFuture<>();
+            CompletableFuture<Long> other = creating.putIfAbsent(name, future);
+            if (other == null) {
+                claimed.put(name, future);
+            }
+            waiting.put(name, other != null ? other : future);
+        }
+
+        // The names claimed here are created before waiting for anybody else, so callers never wait for each other
+        if (!claimed.isEmpty()) {
+            try {
+                Map<String, Long> created = findOrCreate(claimed.keySet());
+                claimed.forEach((name, future) -> future.complete(created.get(name)));
+            } catch (RuntimeException e) {
+                claimed.values().forEach(future -> future.completeExceptionally(e));
+                throw e;
+            } finally {
+                claimed.forEach(creating::remove);
+            }
+        }
+        waiting.forEach((name, future) -> resolved.put(name, future.join()));
+
+        Map<String, Director> directors = new HashMap<>();
+        resolved.forEach((name, id) -> directors.put(name, reference(id, name)));
+        return directors;
+    }
+
+    private Map<String, Long> findOrCreate(Set<String> names) {
+        Map<String, Long> ids;
+        try {
+            ids = requiresNew.execute(status -> insertMissing(names));
+        } catch (DataIntegrityViolationException e) {
+            // Another node inserted some of the names meanwhile, the second attempt finds them
+            ids = requiresNew.execute(status -> insertMissing(names));
+        }
+        ids.forEach((name, id) -> put(id, name));
+        return ids;
+    }
+
+    private Map<String, Long> insertMissing(Set<String> names) {
+        Map<String, Long> ids = new HashMap<>();
+        directorRepository.findByNameIn(names).forEach(director -> ids.put(director.getName(), director.getId()));
+
+        List<Director> missing = names.stream()
+                .filter(name -> !ids.containsKey(name))
+                .map(Director::new)
+                .toList();
+        directorRepository.saveAll(missing).forEach(director -> ids.put(director.getName(), director.getId()));
+        if (!missing.isEmpty()) {
+            eventPublisher.publishEvent(EntityChangedEvent.directors(missing.stream().map(Director::getId).toList()));
+        }
+        return ids;
+    }
+
+    private void apply(EntityChangedEvent event) {
+        if (event.type() != EntityChangedEvent.EntityType.DIRECTOR) {
+            return;
+        }
+        if (event.isAll()) {
+            load();
+        } else {
+            refresh(event.ids());
+        }
+    }
+
+    private void refresh(Collection<Long> ids) {
+        Queue<Long> changed = changedDuringReload;
+        if (changed != null) {
+            changed.addAll(ids);
+        }
+        List<Long> pending = new ArrayList<>(ids);
+        for (int from = 0; from < pending.size(); from += REFRESH_BATCH_SIZE) {
+            Set<Long> missing = new HashSet<>(pending.subList(from, Math.min(from + REFRESH_BATCH_SIZE, pending.size())));
+            List<Object[]> rows = readOnly.execute(status -> directorRepository.findIdsAndNames(missing));
+            for (Object[] row : rows) {
+                put((Long) row[0], (String) row[1]);
+                missing.remove((Long) row[0]);
+            }
+            missing.forEach(this::remove);
+        }
+    }
+
+    private synchronized void put(Long id, String name) {
+        String previous = namesById.put(id, name);
+        if (previous != null && !previous.equals(name)) {
+            idsByName.remove(previous, id);
+        }
+        idsByName.put(name, id);
+    }
+
+    private synchronized void remove(Long id) {
+        String name = namesById.remove(id);
+        if (name != null) {
+            idsByName.remove(name, id);
+        }
+    }
+
+    private static Director reference(Long id, String name) {
+        Director director = new Director(name);
+        director.setId(id);
+        return director;
+    }
+}
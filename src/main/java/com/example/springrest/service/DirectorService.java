@@ -1,9 +1,14 @@
 package com.example.springrest.service;
 
+import com.example.springrest.cache.CacheInvalidator;
+import com.example.springrest.cache.EntityChangedEvent;
 import com.example.springrest.dto.RestResponse;
 import com.example.springrest.model.Director;
 import com.example.springrest.repository.DirectorRepository;
+import com.example.springrest.repository.MovieRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,7 +18,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class DirectorService {
     private final DirectorRepository directorRepository;
+    private final MovieRepository movieRepository;
+    private final MovieStatsService movieStatsService;
+    private final ApplicationEventPublisher eventPublisher;
 
+    @Cacheable(CacheInvalidator.DIRECTOR_CACHE)
     public List<Director> getAll() {
         return directorRepository.findAll();
     }
@@ -22,8 +31,9 @@ public class DirectorService {
         if (directorRepository.existsByName(director)) {
             return null;
         }
-        Director newDirector = new Director(director);
-        return directorRepository.save(newDirector);
+        Director newDirector = directorRepository.save(new Director(director));
+        eventPublisher.publishEvent(EntityChangedEvent.directors(List.of(newDirector.getId())));
+        return newDirector;
     }
 
     @Transactional
@@ -36,15 +46,28 @@ public class DirectorService {
         } else {
             director.setName(name);
             directorRepository.save(director);
+            publishChange(id);
             return new RestResponse(200, "Edited!");
         }
     }
 
+    @Transactional
     public boolean delete(Long id) {
         if (directorRepository.existsById(id)) {
+            publishChange(id);
+            movieStatsService.recordDirectorRemoved(id);
             directorRepository.deleteById(id);
             return true;
         }
         return false;
     }
+
+    /** Movie details embed the director, so its movies change together with it **/
+    private void publishChange(Long directorId) {
+        eventPublisher.publishEvent(EntityChangedEvent.directors(List.of(directorId)));
+        List<Long> movieIds = movieRepository.findIdsByDirectorId(directorId);
+        if (!movieIds.isEmpty()) {
+            eventPublisher.publishEvent(EntityChangedEvent.movies(movieIds));
+        }
+    }
 }
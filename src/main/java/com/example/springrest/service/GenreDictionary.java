@@ -0,0 +1,170 @@
+package com.example.springrest.service;
+
+import com.example.springrest.repository.GenreRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maps genre names to the small ids movies are stored with. There are only a few dozen genres and they are
+ * never renamed or removed, so the whole table is kept in memory and an unknown name or id is simply
+ * reloaded, which also picks up genres that other nodes have added. New names get the next free id; the
+ * primary key and the unique name settle races between nodes. Loads and inserts are serialized by a lock
+ * rather than a monitor, so virtual threads waiting on the database do not pin their carrier.
+ */
+@Service
+public class GenreDictionary {
+    private static final int MAX_ATTEMPTS = 3;
+    /** Unknown names in queries reload the table at most this often **/
+    private static final long RELOAD_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final GenreRepository genreRepository;
+    private final TransactionTemplate requiresNew;
+    private final Lock lock = new ReentrantLock();
+
+    private final Map<String, Short> idsByName = new ConcurrentHashMap<>();
+    /** Indexed by id **/
+    private volatile String[] namesById = new String[0];
+    private volatile long loadedAt = System.nanoTime() - RELOAD_INTERVAL_NANOS;
+
+    public GenreDictionary(GenreRepository genreRepository, PlatformTransactionManager transactionManager) {
+        this.genreRepository = genreRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.lock();
+        try {
+            Map<Short, String> genres = genreRepository.findAll();
+            String[] names = new String[genres.keySet().stream().mapToInt(Short::intValue).max().orElse(0) + 1];
+            genres.forEach((id, name) -> {
+                names[id] = name;
+                idsByName.put(name, id);
+            });
+            namesById = names;
+            loadedAt = System.nanoTime();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Sorted ids of the genres, creating the ones that do not exist yet. Null names are ignored **/
+    public short[] resolve(Collection<String> names) {
+        short[] ids = lookup(names);
+        if (ids.length == distinctCount(names)) {
+            return ids;
+        }
+        create(names);
+        return lookup(names);
+    }
+
+    /** Sorted ids of the genres that exist; unknown names are left out **/
+    public short[] find(Collection<String> names) {
+        short[] ids = lookup(names);
+        if (ids.length < distinctCount(names) && System.nanoTime() - loadedAt >= RELOAD_INTERVAL_NANOS) {
+            load();
+            ids = lookup(names);
+        }
+        return ids;
+    }
+
+    /** Number of distinct names a lookup of these names can return **/
+    public static int distinctCount(Collection<String> names) {
+        Collection<String> distinct = names instanceof Set<String> ? names : new HashSet<>(names);
+        int count = 0;
+        for (String name : distinct) {
+            if (name != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /** Names of the genres in alphabetical order **/
+    public Set<String> names(short[] ids) {
+        Set<String> names = new TreeSet<>();
+        for (short id : ids) {
+            names.add(name(id));
+        }
+        return names;
+    }
+
+    public String name(short id) {
+        String[] names = namesById;
+        if (id >= names.length || names[id] == null) {
+            load();
+            names = namesById;
+        }
+        if (id >= names.length || names[id] == null) {
+            throw new IllegalStateException("Unknown genre id " + id);
+        }
+        return names[id];
+    }
+
+    private void create(Collection<String> names) {
+        lock.lock();
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    requiresNew.executeWithoutResult(status -> insertMissing(names));
+                    load();
+                    return;
+                } catch (DataIntegrityViolationException e) {
+                    // Another node took the id or the name meanwhile; the next attempt reads what it inserted
+                    if (attempt == MAX_ATTEMPTS) {
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void insertMissing(Collection<String> names) {
+        Set<String> missing = new TreeSet<>();
+        names.stream().filter(Objects::nonNull).forEach(missing::add);
+        missing.removeAll(genreRepository.findIdsByNames(missing).keySet());
+        int id = genreRepository.findMaxId();
+        for (String name : missing) {
+            if (++id > Short.MAX_VALUE) {
+                throw new IllegalStateException("Too many genres");
+            }
+            genreRepository.insert((short) id, name);
+        }
+    }
+
+    private short[] lookup(Collection<String> names) {
+        short[] ids = new short[names.size()];
+        int count = 0;
+        for (String name : names) {
+            Short id = name != null ? idsByName.get(name) : null;
+            if (id != null) {
+                ids[count++] = id;
+            }
+        }
+        return sortedDistinct(ids, count);
+    }
+
+    private static short[] sortedDistinct(short[] ids, int count) {
+        Arrays.sort(ids, 0, count);
+        int distinct = 0;
+        for (int i = 0; i < count; i++) {
+            if (distinct == 0 || ids[distinct - 1] != ids[i]) {
+                ids[distinct++] = ids[i];
+            }
+        }
+        return distinct == ids.length ? ids : Arrays.copyOf(ids, distinct);
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.springrest.service;
+
+import com.example.springrest.dto.ImportJobDTO;
+import com.example.springrest.dto.MovieUploadResponseDTO;
+import com.example.springrest.model.ImportJob;
+import com.example.springrest.repository.ImportJobRepository;
+import com.example.springrest.service.utils.CountingInputStream;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Runs uploads in the background. The file is spooled to local disk, processed by a bounded executor and
+ * the job row is updated in the same transaction as every imported chunk, so a job that was interrupted
+ * by a restart continues from its last committed chunk.
+ */
+@Slf4j
+@Service
+public class ImportJobService {
+    private static final List<ImportJob.Status> UNFINISHED = List.of(ImportJob.Status.QUEUED, ImportJob.Status.RUNNING);
+
+    private final ImportJobRepository importJobRepository;
+    private final MovieImportService movieImportService;
+    private final TaskExecutor importJobExecutor;
+    private final Path spoolDirectory;
+
+    public ImportJobService(ImportJobRepository importJobRepository,
+                            MovieImportService movieImportService,
+                            TaskExecutor importJobExecutor,
+                            @Value("${movie.import.async.spool-dir:${java.io.tmpdir}/movie-imports}") Path spoolDirectory) {
+        this.importJobRepository = importJobRepository;
+        this.movieImportService = movieImportService;
+        this.importJobExecutor = importJobExecutor;
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    public ImportJobDTO submit(MultipartFile file) {
+        String id = UUID.randomUUID().toString();
+        Path path = spoolDirectory.resolve(id + ".upload");
+        try {
+            Files.createDirectories(spoolDirectory);
+            file.transferTo(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        ImportJob job = importJobRepository.save(new ImportJob(id, path.toString(), file.getSize()));
+        try {
+            importJobExecutor.execute(() -> run(id));
+        } catch (TaskRejectedException e) {
+            importJobRepository.delete(job);
+            deleteSpoolFile(path);
+            throw e;
+        }
+        return toDTO(job);
+    }
+
+    public ImportJobDTO getJob(String id) {
+        return importJobRepository.findById(id)
+                .map(this::toDTO)
+                .orElseThrow(() -> new EntityNotFoundException("Import job " + id + " not found"));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeUnfinishedJobs() {
+        for (ImportJob job : importJobRepository.findByStatusIn(UNFINISHED)) {
+            if (!Files.exists(Path.of(job.getFilePath()))) {
+                continue;
+            }
+            try {
+                importJobExecutor.execute(() -> run(job.getId()));
+            } catch (TaskRejectedException e) {
+                log.warn("Import job {} could not be resumed. {}", job.getId(), e.getMessage());
+            }
+        }
+    }
+
+    private void run(String id) {
+        ImportJob job = importJobRepository.findById(id).orElse(null);
+        if (job == null) {
+            return;
+        }
+        job.setStatus(ImportJob.Status.RUNNING);
+        job.setStartedAt(Instant.now());
+        job.setUpdatedAt(job.getStartedAt());
+        job.setProcessedAtStart(job.getProcessed());
+        job.setBytesAtStart(job.getBytesRead());
+        ImportJob running = importJobRepository.save(job);
+
+        Path path = Path.of(running.getFilePath());
+        try (CountingInputStream inputStream = new CountingInputStream(Files.newInputStream(path))) {
+            movieImportService.importMovies(inputStream, running.getProcessed(),
+                    new MovieUploadResponseDTO(running.getImported(), running.getAlreadyExists(), running.getFailed()),
+                    (processed, totals) -> {
+                        running.setProcessed(processed);
+                        running.setImported(totals.imported());
+                        running.setAlreadyExists(totals.alreadyExists());
+                        running.setFailed(totals.failed());
+                        running.setBytesRead(Math.max(running.getBytesRead(), inputStream.getCount()));
+                        running.setUpdatedAt(Instant.now());
+                        importJobRepository.save(running);
+                    });
+            finish(id, ImportJob.Status.COMPLETED, null);
+        } catch (Exception e) {
+            finish(id, ImportJob.Status.FAILED, e.getMessage());
+        }
+        deleteSpoolFile(path);
+    }
+
+    private void finish(String id, ImportJob.Status status, String error) {
+        importJobRepository.findById(id).ifPresent(job -> {
+            job.setStatus(status);
+            // Messages can quote whole records or SQL statements, which would not fit the column
+            job.setError(error != null && error.length() > ImportJob.MAX_ERROR_LENGTH
+                    ? error.substring(0, ImportJob.MAX_ERROR_LENGTH) : error);
+            if (status == ImportJob.Status.COMPLETED) {
+                job.setBytesRead(job.getBytesTotal());
+            }
+            job.setUpdatedAt(Instant.now());
+            importJobRepository.save(job);
+        });
+    }
+
+    private ImportJobDTO toDTO(ImportJob job) {
+        Double rowsPerSecond = null;
+        Long etaSeconds = null;
+        if (job.getStartedAt() != null) {
+            Instant end = job.getStatus() == ImportJob.Status.RUNNING ? Instant.now() : job.getUpdatedAt();
+            double elapsed = Duration.between(job.getStartedAt(), end).toMillis() / 1000.0;
+            if (elapsed > 0) {
+                rowsPerSecond = (job.getProcessed() - job.getProcessedAtStart()) / elapsed;
+                double bytesPerSecond = (job.getBytesRead() - job.getBytesAtStart()) / elapsed;
+                if (job.getStatus() == ImportJob.Status.RUNNING && bytesPerSecond > 0) {
+                    etaSeconds = (long) Math.ceil((job.getBytesTotal() - job.getBytesRead()) / bytesPerSecond);
+                }
+            }
+        }
+        if (job.getStatus() == ImportJob.Status.COMPLETED) {
+            etaSeconds = 0L;
+        }
+        return new ImportJobDTO(job.getId(), job.getStatus().name(), job.getProcessed(), job.getImported(),
+                job.getAlreadyExists(), job.getFailed(), rowsPerSecond, etaSeconds, job.getError());
+    }
+
+    private void deleteSpoolFile(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete spooled upload {}. {}", path, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.springrest.service;
+
+import com.example.springrest.cache.EntityChangedEvent;
+import com.example.springrest.cache.InvalidationBus;
+import com.example.springrest.dto.GenreMatch;
+import com.example.springrest.dto.MovieQueryDTO;
+import com.example.springrest.dto.MovieSummaryDTO;
+import com.example.springrest.repository.DirectorRepository;
+import com.example.springrest.repository.MovieRepository;
+import com.example.springrest.service.utils.MovieColumns;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Stream;
+
+/**
+ * Answers movie lists from an in-memory columnar copy of the catalog instead of the database. The copy is
+ * loaded when the application starts and then follows the changes delivered by the invalidation bus, like the
+ * suggestion indexes, so the database stays the source of truth. Until the first load completes, and for
+ * searches, which rank by relevance, callers keep querying the database.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "movie.catalog.enabled", havingValue = "true")
+public class MovieCatalog {
+    private static final int REFRESH_BATCH_SIZE = 1000;
+
+    private final MovieRepository movieRepository;
+    private final DirectorRepository directorRepository;
+    private final GenreDictionary genreDictionary;
+    private final TransactionTemplate readOnly;
+
+    private volatile MovieColumns columns;
+    /** Changes made while a rebuild is reading the table, replayed on the new columns once they are in place **/
+    private volatile Queue<EntityChangedEvent> changedDuringRebuild;
+
+    public MovieCatalog(MovieRepository movieRepository,
+                        DirectorRepository directorRepository,
+                        GenreDictionary genreDictionary,
+                        PlatformTransactionManager transactionManager,
+                        InvalidationBus invalidationBus) {
+        this.movieRepository = movieRepository;
+        this.directorRepository = directorRepository;
+        this.genreDictionary = genreDictionary;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        invalidationBus.subscribe(this::apply);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /** Whether the query can be answered from memory **/
+    public boolean supports(MovieQueryDTO query) {
+        return columns != null && (query.search() == null || query.search().isBlank());
+    }
+
+    public List<MovieSummaryDTO> find(MovieQueryDTO query, Long afterId, long offset, int limit) {
+        List<MovieSummaryDTO> movies = new ArrayList<>();
+        for (MovieColumns.Row row : columns.find(toFilter(query), afterId, offset, limit)) {
+            movies.add(new MovieSummaryDTO(row.id(), row.title(), row.year(), genreDictionary.names(row.genreIds()),
+                    row.directorName()));
+        }
+        return movies;
+    }
+
+    public long count(MovieQueryDTO query) {
+        return columns.count(toFilter(query));
+    }
+
+    /** Mirrors the database specifications; unknown genres match nothing unless any one genre is enough **/
+    private MovieColumns.Filter toFilter(MovieQueryDTO query) {
+        short[] genreIds = null;
+        if (query.genre() != null && !query.genre().isEmpty()) {
+            genreIds = genreDictionary.find(query.genre());
+            if (query.genreMatch() != GenreMatch.ANY && genreIds.length < GenreDictionary.distinctCount(query.genre())) {
+                genreIds = new short[0];
+            }
+        }
+        return new MovieColumns.Filter(
+                query.title() != null && !query.title().isBlank() ? query.title() : null,
+                query.year() != 0 ? query.year() : null,
+                genreIds,
+                query.genreMatch(),
+                query.director() != null && !query.director().isBlank() ? query.director() : null);
+    }
+
+    private void apply(EntityChangedEvent event) {
+        Queue<EntityChangedEvent> changed = changedDuringRebuild;
+        if (changed != null) {
+            changed.add(event);
+        }
+        MovieColumns current = columns;
+        if (current == null) {
+            return;
+        }
+        if (event.isAll() && event.type() == EntityChangedEvent.EntityType.MOVIE) {
+            rebuild();
+        } else if (event.isAll()) {
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = directorRepository.streamIdsAndNames()) {
+                    rows.forEach(row -> current.renameDirector((Long) row[0], (String) row[1]));
+                }
+            });
+        } else if (event.type() == EntityChangedEvent.EntityType.MOVIE) {
+            refreshMovies(current, event.ids());
+        } else {
+            for (Object[] row : directorRepository.findIdsAndNames(event.ids())) {
+                current.renameDirector((Long) row[0], (String) row[1]);
+            }
+        }
+    }
+
+    private void rebuild() {
+        Queue<EntityChangedEvent> changed = new ConcurrentLinkedQueue<>();
+        changedDuringRebuild = changed;
+        MovieColumns rebuilt = new MovieColumns();
+        long start = System.nanoTime();
+        readOnly.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = movieRepository.streamCatalogRows()) {
+                rows.forEach(row -> put(rebuilt, row));
+            }
+        });
+        columns = rebuilt;
+        changedDuringRebuild = null;
+        log.info("Loaded {} movies into the catalog in {} ms", rebuilt.size(), (System.nanoTime() - start) / 1_000_000);
+        for (EntityChangedEvent event : changed) {
+            apply(event);
+        }
+    }
+
+    private void refreshMovies(MovieColumns current, Collection<Long> ids) {
+        List<Long> pending = new ArrayList<>(ids);
+        for (int from = 0; from < pending.size(); from += REFRESH_BATCH_SIZE) {
+            Set<Long> missing = new HashSet<>(pending.subList(from, Math.min(from + REFRESH_BATCH_SIZE, pending.size())));
+            for (Object[] row : movieRepository.findCatalogRows(missing)) {
+                put(current, row);
+                missing.remove((Long) row[0]);
+            }
+            missing.forEach(current::remove);
+        }
+    }
+
+    private static void put(MovieColumns columns, Object[] row) {
+        columns.put((Long) row[0], (String) row[1], (Integer) row[2], (short[]) row[3], (Long) row[4], (String) row[5]);
+    }
+}
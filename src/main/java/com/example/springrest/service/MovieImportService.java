@@ -0,0 +1,392 @@
+package com.example.springrest.service;
+
+import com.example.springrest.cache.EntityChangedEvent;
+import com.example.springrest.dto.MovieCreateDTO;
+import com.example.springrest.dto.MovieUploadResponseDTO;
+import com.example.springrest.model.Director;
+import com.example.springrest.model.Movie;
+import com.example.springrest.repository.MovieBatchRepository;
+import com.example.springrest.service.upload.MovieRecordReader;
+import com.example.springrest.service.upload.UploadFormat;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Year;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import pipeline. The file is parsed in chunks and every chunk is written in its own transaction:
+ * directors are resolved through the {@link DirectorDictionary}, duplicates within the chunk are removed in
+ * memory and the remaining movies are inserted with one upsert that skips those already in the database. The time of every stage is recorded in the
+ * {@code movie.import.stage} timer and the outcome of the records in the {@code movie.import.records} counter.
+ * <p>
+ * Files are read as a stream in any of the {@link UploadFormat}s. In NDJSON and CSV a record that cannot be
+ * parsed only counts as failed; a JSON array has no record boundaries to recover at, so it is rejected.
+ * <p>
+ * With {@code movie.import.parallelism} above one (it is one by default), uploads are read by the calling thread
+ * and validated and written by that many workers, each with its own connection. Records are routed to a worker by
+ * title and director, so duplicates always meet in the same worker in file order and the counts match a sequential
+ * run. The workers come from a pool shared by all uploads; an upload that cannot get all of its workers at once is
+ * imported sequentially instead of waiting for threads that other uploads hold.
+ */
+@Service
+public class MovieImportService {
+    private static final int CHUNK_SIZE = 1000;
+    /** Chunks queued for every worker before the reader has to wait **/
+    private static final int QUEUED_CHUNKS = 2;
+    private static final List<MovieCreateDTO> END = new ArrayList<>(0);
+
+    private final DirectorDictionary directorDictionary;
+    private final GenreDictionary genreDictionary;
+    private final MovieBatchRepository movieBatchRepository;
+    private final MovieStatsService movieStatsService;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolTaskExecutor importWorkerExecutor;
+    /** Free threads of the worker pool, taken by an upload for all of its workers before they start **/
+    private final Semaphore workerThreads;
+    private final int parallelism;
+
+    public MovieImportService(DirectorDictionary directorDictionary,
+                              GenreDictionary genreDictionary,
+                              MovieBatchRepository movieBatchRepository,
+                              MovieStatsService movieStatsService,
+                              TransactionTemplate transactionTemplate,
+                              EntityManager entityManager,
+                              ApplicationEventPublisher eventPublisher,
+                              MeterRegistry meterRegistry,
+                              ThreadPoolTaskExecutor importWorkerExecutor,
+                              @Value("${movie.import.parallelism:1}") int parallelism) {
+        this.directorDictionary = directorDictionary;
+        this.genreDictionary = genreDictionary;
+        this.movieBatchRepository = movieBatchRepository;
+        this.movieStatsService = movieStatsService;
+        this.transactionTemplate = transactionTemplate;
+        this.entityManager = entityManager;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+        this.importWorkerExecutor = importWorkerExecutor;
+        this.workerThreads = new Semaphore(importWorkerExecutor.getMaxPoolSize());
+        this.parallelism = Math.min(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(),
+                importWorkerExecutor.getMaxPoolSize());
+    }
+
+    public MovieUploadResponseDTO importMovies(InputStream inputStream) {
+        if (parallelism > 1 && workerThreads.tryAcquire(parallelism)) {
+            try (MovieRecordReader records = UploadFormat.open(inputStream)) {
+                return new ParallelImport(parallelism).run(records);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                workerThreads.release(parallelism);
+            }
+        }
+        return importMovies(inputStream, 0, new MovieUploadResponseDTO(0, 0, 0), (processed, totals) -> {
+        });
+    }
+
+    /**
+     * Imports movies from an upload in any of the {@link UploadFormat}s, skipping the first {@code skip} records
+     * which an earlier run has already committed. The listener is called inside every chunk transaction, so
+     * anything it writes is committed atomically with the chunk. Chunks are committed in file order, so this
+     * always runs on the calling thread.
+     */
+    public MovieUploadResponseDTO importMovies(InputStream inputStream, long skip, MovieUploadResponseDTO initial,
+                                               ChunkListener listener) {
+        try (MovieRecordReader records = UploadFormat.open(inputStream)) {
+            long processed = 0;
+            int imported = initial.imported();
+            int alreadyExists = initial.alreadyExists();
+            int failed = initial.failed();
+
+            for (; processed < skip && records.hasNext(); processed++) {
+                records.skip();
+            }
+            List<MovieCreateDTO> chunk = new ArrayList<>(CHUNK_SIZE);
+            long parseNanos = 0;
+            long validateNanos = 0;
+            while (records.hasNext()) {
+                long start = System.nanoTime();
+                MovieCreateDTO dto = records.next();
+                long parsed = System.nanoTime();
+                boolean valid = isValidMovie(dto);
+                parseNanos += parsed - start;
+                validateNanos += System.nanoTime() - parsed;
+                processed++;
+                if (!valid) {
+                    failed++;
+                    continue;
+                }
+                chunk.add(dto);
+                if (chunk.size() == CHUNK_SIZE) {
+                    recordStage("parse", parseNanos);
+                    recordStage("validate", validateNanos);
+                    parseNanos = 0;
+                    validateNanos = 0;
+                    int chunkImported = importChunk(chunk,
+                            listenerFor(listener, processed, imported, alreadyExists, failed, chunk.size()));
+                    imported += chunkImported;
+                    alreadyExists += chunk.size() - chunkImported;
+                    chunk.clear();
+                }
+            }
+            recordStage("parse", parseNanos);
+            recordStage("validate", validateNanos);
+            int chunkImported = importChunk(chunk,
+                    listenerFor(listener, processed, imported, alreadyExists, failed, chunk.size()));
+            imported += chunkImported;
+            alreadyExists += chunk.size() - chunkImported;
+
+            countRecords("imported", imported - initial.imported());
+            countRecords("already_exists", alreadyExists - initial.alreadyExists());
+            countRecords("failed", failed - initial.failed());
+            return new MovieUploadResponseDTO(imported, alreadyExists, failed);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private IntConsumer listenerFor(ChunkListener listener, long processed, int imported, int alreadyExists,
+                                    int failed, int chunkSize) {
+        return chunkImported -> listener.beforeChunkCommit(processed, new MovieUploadResponseDTO(
+                imported + chunkImported, alreadyExists + chunkSize - chunkImported, failed));
+    }
+
+    /**
+     * Writes one chunk of valid movies in its own transaction and returns how many of them were inserted.
+     * Missing directors and genres are created before, in transactions of their own, so other workers can
+     * refer to them as soon as they exist.
+     */
+    private int importChunk(List<MovieCreateDTO> chunk, IntConsumer beforeCommit) {
+        long start = System.nanoTime();
+        Map<String, Director> resolved = chunk.isEmpty() ? Map.of()
+                : directorDictionary.resolveAll(chunk.stream().map(MovieCreateDTO::director).toList());
+        genreDictionary.resolve(chunk.stream().flatMap(dto -> dto.genre().stream()).collect(Collectors.toSet()));
+        long resolveNanos = System.nanoTime() - start;
+        Integer chunkImported = transactionTemplate.execute(status -> {
+            long dedupeStart = System.nanoTime();
+            List<Movie> candidates = chunk.isEmpty() ? List.of() : deduplicate(chunk, resolved);
+            if (!chunk.isEmpty()) {
+                recordStage("dedupe", resolveNanos + System.nanoTime() - dedupeStart);
+            }
+            List<Movie> movies = stageTimer("insert").record(() -> movieBatchRepository.insertNew(candidates));
+            movieStatsService.recordAdded(movies);
+            if (!movies.isEmpty()) {
+                eventPublisher.publishEvent(EntityChangedEvent.movies(movies.stream().map(Movie::getId).toList()));
+            }
+            beforeCommit.accept(movies.size());
+            entityManager.flush();
+            entityManager.clear();
+            return movies.size();
+        });
+        recordStage("transaction", System.nanoTime() - start);
+        return chunkImported != null ? chunkImported : 0;
+    }
+
+    private Timer stageTimer(String stage) {
+        return Timer.builder("movie.import.stage")
+                .description("Time spent in each stage of a movie import")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    private void recordStage(String stage, long nanos) {
+        stageTimer(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void countRecords(String result, long count) {
+        meterRegistry.counter("movie.import.records", "result", result).increment(count);
+    }
+
+    /**
+     * Drops movies that repeat within the chunk; the ones already in the database are skipped by the insert.
+     * Movies with the same genres share one id array.
+     */
+    private List<Movie> deduplicate(List<MovieCreateDTO> chunk, Map<String, Director> directors) {
+        Map<MovieKey, Movie> candidates = new LinkedHashMap<>();
+        Map<Set<String>, short[]> genreIds = new HashMap<>();
+        for (MovieCreateDTO dto : chunk) {
+            Director director = directors.get(dto.director());
+            candidates.putIfAbsent(new MovieKey(dto.title(), director.getId()), new Movie(dto.title(), dto.year(),
+                    genreIds.computeIfAbsent(dto.genre(), genreDictionary::resolve), director));
+        }
+        return new ArrayList<>(candidates.values());
+    }
+
+    private boolean isValidMovie(MovieCreateDTO dto) {
+        return dto != null
+                && dto.title() != null && !dto.title().isBlank()
+                && dto.year() != null && dto.year() >= 1900 && dto.year() <= Year.now().getValue()
+                && dto.genre() != null && !dto.genre().isEmpty()
+                && dto.director() != null && !dto.director().isBlank();
+    }
+
+    private static <T> void putUninterruptibly(BlockingQueue<T> queue, T element) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(element);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static <T> T takeUninterruptibly(BlockingQueue<T> queue) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return queue.take();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public interface ChunkListener {
+        /** Called inside the chunk transaction with the number of records read so far and the running totals **/
+        void beforeChunkCommit(long processed, MovieUploadResponseDTO totals);
+    }
+
+    /**
+     * One parallel upload: the calling thread parses the file and hands chunks to the workers through
+     * bounded queues, so a slow database holds the reader back instead of filling the heap. A worker that
+     * fails keeps draining its queue, and the first failure is rethrown once every worker has finished.
+     */
+    private class ParallelImport {
+        private final List<BlockingQueue<List<MovieCreateDTO>>> queues = new ArrayList<>();
+        private final CountDownLatch finished;
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private final AtomicInteger imported = new AtomicInteger();
+        private final AtomicInteger alreadyExists = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+
+        ParallelImport(int workers) {
+            for (int i = 0; i < workers; i++) {
+                queues.add(new ArrayBlockingQueue<>(QUEUED_CHUNKS));
+            }
+            finished = new CountDownLatch(workers);
+        }
+
+        MovieUploadResponseDTO run(MovieRecordReader records) throws IOException {
+            queues.forEach(queue -> importWorkerExecutor.execute(() -> work(queue)));
+            try {
+                read(records);
+            } finally {
+                queues.forEach(queue -> putUninterruptibly(queue, END));
+                awaitWorkers();
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+
+            countRecords("imported", imported.get());
+            countRecords("already_exists", alreadyExists.get());
+            countRecords("failed", failed.get());
+            return new MovieUploadResponseDTO(imported.get(), alreadyExists.get(), failed.get());
+        }
+
+        private void read(MovieRecordReader records) throws IOException {
+            List<List<MovieCreateDTO>> chunks = new ArrayList<>();
+            queues.forEach(queue -> chunks.add(new ArrayList<>(CHUNK_SIZE)));
+
+            long parseNanos = 0;
+            while (records.hasNext() && failure.get() == null) {
+                long start = System.nanoTime();
+                MovieCreateDTO dto = records.next();
+                parseNanos += System.nanoTime() - start;
+                if (dto == null) {
+                    failed.incrementAndGet();
+                    continue;
+                }
+
+                int worker = Math.floorMod(Objects.hash(dto.title(), dto.director()), queues.size());
+                List<MovieCreateDTO> chunk = chunks.get(worker);
+                chunk.add(dto);
+                if (chunk.size() == CHUNK_SIZE) {
+                    putUninterruptibly(queues.get(worker), chunk);
+                    chunks.set(worker, new ArrayList<>(CHUNK_SIZE));
+                }
+            }
+            recordStage("parse", parseNanos);
+            for (int worker = 0; worker < chunks.size(); worker++) {
+                if (!chunks.get(worker).isEmpty()) {
+                    putUninterruptibly(queues.get(worker), chunks.get(worker));
+                }
+            }
+        }
+
+        private void work(BlockingQueue<List<MovieCreateDTO>> queue) {
+            try {
+                for (List<MovieCreateDTO> chunk = takeUninterruptibly(queue); chunk != END; chunk = takeUninterruptibly(queue)) {
+                    if (failure.get() != null) {
+                        continue;
+                    }
+                    try {
+                        importQueuedChunk(chunk);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            } finally {
+                finished.countDown();
+            }
+        }
+
+        private void importQueuedChunk(List<MovieCreateDTO> chunk) {
+            long start = System.nanoTime();
+            List<MovieCreateDTO> valid = chunk.stream().filter(MovieImportService.this::isValidMovie).toList();
+            recordStage("validate", System.nanoTime() - start);
+            failed.addAndGet(chunk.size() - valid.size());
+
+            int chunkImported = importChunk(valid, count -> {
+            });
+            imported.addAndGet(chunkImported);
+            alreadyExists.addAndGet(valid.size() - chunkImported);
+        }
+
+        private void awaitWorkers() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private record MovieKey(String title, Long directorId) {
+    }
+}
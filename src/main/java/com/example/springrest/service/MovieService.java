@@ -1,171 +1,308 @@
 package com.example.springrest.service;
 
+import com.example.springrest.cache.CacheInvalidator;
+import com.example.springrest.cache.EntityChangedEvent;
 import com.example.springrest.dto.*;
 import com.example.springrest.model.Director;
 import com.example.springrest.model.Movie;
-import com.example.springrest.repository.DirectorRepository;
+import com.example.springrest.repository.MovieBatchRepository;
 import com.example.springrest.repository.MovieRepository;
-import com.example.springrest.service.utils.GenreAdapter;
+import com.example.springrest.service.report.ReportContent;
+import com.example.springrest.service.report.ReportEncoding;
+import com.example.springrest.service.report.ReportWriter;
+import com.example.springrest.service.utils.MovieCursor;
 import com.example.springrest.service.utils.MovieSpecifications;
-import com.example.springrest.service.utils.YearAdapter;
-import com.google.gson.*;
-import com.google.gson.stream.JsonReader;
-import com.google.gson.stream.MalformedJsonException;
-import com.opencsv.CSVWriter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.arrow.memory.BufferAllocator;
+import org.hibernate.Session;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.time.Year;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class MovieService {
-    private final MovieRepository movieRepository;
-    private final DirectorRepository directorRepository;
+    public static final int MAX_BULK_OPERATIONS = 1000;
+    private static final int REPORT_FETCH_SIZE = 1000;
 
+    private final MovieRepository movieRepository;
+    private final MovieBatchRepository movieBatchRepository;
+    private final DirectorDictionary directorDictionary;
+    private final GenreDictionary genreDictionary;
+    private final MovieImportService movieImportService;
+    private final MovieStatsService movieStatsService;
+    private final ObjectProvider<MovieCatalog> movieCatalog;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final MeterRegistry meterRegistry;
+    private final BufferAllocator reportAllocator;
+
+    /**
+     * Inserts the movie unless the director already has one with this title, in a single statement.
+     * The director and the genres are resolved first, so new ones are committed on their own before the movie.
+     */
     public RestResponse addMovie(MovieCreateDTO movieCreateDTO) {
-        if (movieRepository.existsByTitleAndDirector_Name(movieCreateDTO.title(), movieCreateDTO.director())) {
+        Movie movie = fromDTO(movieCreateDTO);
+        boolean inserted = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            List<Movie> movies = movieBatchRepository.insertNew(List.of(movie));
+            movieStatsService.recordAdded(movies);
+            return !movies.isEmpty();
+        }));
+        if (!inserted) {
             throw new EntityExistsException();
         }
-        Movie movie = fromDTO(movieCreateDTO);
-        Long id = movieRepository.save(movie).getId();
-        return new RestResponse(201, String.valueOf(id));
+        eventPublisher.publishEvent(EntityChangedEvent.movies(List.of(movie.getId())));
+        return new RestResponse(201, String.valueOf(movie.getId()));
     }
 
+    @Cacheable(cacheNames = CacheInvalidator.MOVIE_CACHE, key = "#id")
     public MovieDetailedDTO getMovieById(Long id) {
         Movie movie = movieRepository.findById(id).orElseThrow(EntityNotFoundException::new);
-        return new MovieDetailedDTO(movie.getId(), movie.getTitle(), movie.getYear(), movie.getGenre(), movie.getDirector());
+        return new MovieDetailedDTO(movie.getId(), movie.getTitle(), movie.getYear(),
+                genreDictionary.names(movie.getGenreIds()), movie.getDirector());
     }
 
+    /**
+     * A new director or genre is committed on its own before the transaction starts, so the update never holds
+     * a second connection for it.
+     */
     public void updateMovie(Long id, MovieUpdateDTO movieUpdateDTO) {
-        Movie movie = movieRepository.findById(id).orElseThrow(EntityNotFoundException::new);
+        Resolved resolved = resolve(movieUpdateDTO.director(), movieUpdateDTO.genre());
+        transactionTemplate.executeWithoutResult(status -> {
+            Movie movie = movieRepository.findById(id).orElseThrow(EntityNotFoundException::new);
 
-        if (movieUpdateDTO.title() == null && movieUpdateDTO.year() == 0
-                && movieUpdateDTO.genre() == null && movieUpdateDTO.director() == null) {
-            throw new IllegalArgumentException("Nothing to update");
-        }
-        updateMovieFields(movie, movieUpdateDTO);
-        movieRepository.save(movie);
+            if (movieUpdateDTO.title() == null && movieUpdateDTO.year() == 0
+                    && movieUpdateDTO.genre() == null && movieUpdateDTO.director() == null) {
+                throw new IllegalArgumentException("Nothing to update");
+            }
+            MovieStatsService.Delta delta = new MovieStatsService.Delta().remove(movie);
+            updateMovieFields(movie, movieUpdateDTO, resolved);
+            movieRepository.save(movie);
+            movieStatsService.apply(delta.add(movie));
+            eventPublisher.publishEvent(EntityChangedEvent.movies(List.of(id)));
+        });
     }
 
+    @Transactional
     public void deleteMovie(Long id) {
         Movie movie = movieRepository.findById(id).orElseThrow(EntityNotFoundException::new);
+        movieStatsService.recordRemoved(movie);
         movieRepository.delete(movie);
+        eventPublisher.publishEvent(EntityChangedEvent.movies(List.of(id)));
     }
 
-    public Page<MovieInfoDTO> findMoviesByQuery(MovieQueryListDTO dto) {
+    /**
+     * Applies a batch of operations in one transaction with a fixed number of statements: the movies to update
+     * or delete are loaded with one {@code IN} query, deletes are one {@code DELETE ... IN}, updates are flushed
+     * as one JDBC batch and creates are one guarded insert. Deletes run first, then updates, then creates.
+     * Every operation gets its own result, so an invalid, missing or conflicting movie fails on its own.
+     */
+    public MovieBulkResponseDTO bulk(List<MovieBulkOperationDTO> operations) {
+        if (operations == null || operations.isEmpty() || operations.size() > MAX_BULK_OPERATIONS) {
+            throw new IllegalArgumentException("A bulk request takes 1 to " + MAX_BULK_OPERATIONS + " operations");
+        }
+        MovieBulkItemDTO[] items = new MovieBulkItemDTO[operations.size()];
+        List<Integer> creates = new ArrayList<>();
+        // Update and delete operations by movie id
+        Map<Long, Integer> changes = new LinkedHashMap<>();
+        for (int i = 0; i < operations.size(); i++) {
+            MovieBulkOperationDTO operation = operations.get(i);
+            String error = validate(operation);
+            if (error != null) {
+                items[i] = new MovieBulkItemDTO(400, operation != null ? operation.id() : null, error);
+            } else if (operation.action() == BulkAction.CREATE) {
+                creates.add(i);
+            } else if (changes.putIfAbsent(operation.id(), i) != null) {
+                items[i] = new MovieBulkItemDTO(400, operation.id(), "Movie is changed by another operation of the batch");
+            }
+        }
+
+        // New directors and genres are committed on their own first, like in the single-movie writes
+        List<Integer> writes = new ArrayList<>(creates);
+        writes.addAll(changes.values());
+        List<String> names = writes.stream().map(index -> operations.get(index).director())
+                .filter(name -> name != null && !name.isBlank()).toList();
+        Map<String, Director> directors = names.isEmpty() ? Map.of() : directorDictionary.resolveAll(names);
+        Resolved[] resolved = new Resolved[operations.size()];
+        for (int index : writes) {
+            MovieBulkOperationDTO operation = operations.get(index);
+            resolved[index] = new Resolved(operation.director() != null ? directors.get(operation.director()) : null,
+                    operation.genre() != null && !operation.genre().isEmpty() ? genreDictionary.resolve(operation.genre()) : null);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            MovieStatsService.Delta delta = new MovieStatsService.Delta();
+            List<Long> changedIds = new ArrayList<>();
+            applyChanges(operations, changes, resolved, items, delta, changedIds);
+            applyCreates(operations, creates, resolved, items, delta, changedIds);
+            movieStatsService.apply(delta);
+            if (!changedIds.isEmpty()) {
+                eventPublisher.publishEvent(EntityChangedEvent.movies(changedIds));
+            }
+        });
+        boolean errors = Arrays.stream(items).anyMatch(item -> item.status() >= 400);
+        return new MovieBulkResponseDTO(errors, Arrays.asList(items));
+    }
+
+    /** Served from the in-memory catalog when it is enabled and can answer the query, otherwise from the database **/
+    public MovieResponseListDTO findMoviesByQuery(MovieQueryListDTO dto) {
+        MovieQueryDTO movieQueryDTO = new MovieQueryDTO(dto.title(), dto.year(), dto.genre(), dto.genreMatch(),
+                dto.director(), dto.search());
+        MovieSource source = movieSource(movieQueryDTO);
+        if (dto.cursor() != null) {
+            if (dto.search() != null && !dto.search().isBlank()) {
+                throw new IllegalArgumentException("Search results are ordered by relevance and cannot be paged by cursor");
+            }
+            return findMoviesByCursor(source, dto);
+        }
         PageRequest pageRequest = PageRequest.of(dto.page() - 1, dto.size());
-        MovieQueryDTO movieQueryDTO = new MovieQueryDTO(dto.title(), dto.year(), dto.genre(), dto.director());
-        Specification<Movie> specification = getMovieSpecification(movieQueryDTO);
-        Page<Movie> moviesPage = movieRepository.findAll(specification, pageRequest);
-        return moviesPage.map(movie -> new MovieInfoDTO(
-                movie.getTitle(),
-                movie.getYear(),
-                movie.getGenre().toString(),
-                movie.getDirector().getName()
-        ));
-    }
-
-    public void generateReport(MovieQueryDTO dto, HttpServletResponse response) {
-        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
-        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=movies.csv");
-        Specification<Movie> specification = getMovieSpecification(dto);
-        List<Movie> movies = movieRepository.findAll(specification);
-        if (movies.isEmpty()) {
-            throw new EntityNotFoundException("Movies not found");
+        List<MovieInfoDTO> movies = source.find(null, pageRequest.getOffset(), dto.size())
+                .stream().map(this::toInfoDTO).toList();
+        recordRows("list", movies.size());
+        Page<MovieInfoDTO> page = PageableExecutionUtils.getPage(movies, pageRequest, source::count);
+        return new MovieResponseListDTO(page.getContent(), page.getTotalPages(), null);
+    }
+
+    /** Keyset paging: seeks past the last seen id instead of skipping rows, so every page costs the same **/
+    private MovieResponseListDTO findMoviesByCursor(MovieSource source, MovieQueryListDTO dto) {
+        if (dto.size() < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
         }
-        String csv = convertMoviesToCSV(movies);
-        csv = csv.replace("\"", "");
-        byte[] csvBytes = csv.getBytes(StandardCharsets.UTF_8);
+        List<MovieSummaryDTO> movies = source.find(MovieCursor.decode(dto.cursor()), 0, dto.size() + 1);
 
-        try {
-            response.getOutputStream().write(csvBytes);
-            response.getOutputStream().flush();
-        } catch (IOException e) {
-            System.out.println("Error generating csv-file. " + e.getMessage());
+        String nextCursor = null;
+        if (movies.size() > dto.size()) {
+            movies = movies.subList(0, dto.size());
+            nextCursor = MovieCursor.encode(movies.get(movies.size() - 1).id());
+        }
+        Integer totalPages = null;
+        if (Boolean.TRUE.equals(dto.countTotal())) {
+            totalPages = (int) ((source.count() + dto.size() - 1) / dto.size());
         }
+        recordRows("list", movies.size());
+        return new MovieResponseListDTO(movies.stream().map(this::toInfoDTO).toList(), totalPages, nextCursor);
     }
 
-    @Transactional
-    public MovieUploadResponseDTO uploadMovies(MultipartFile file) {
-        try {
-            int imported = 0;
-            int alreadyExists = 0;
-            int failed = 0;
-
-            Gson gson = new GsonBuilder()
-                    .registerTypeAdapter(Integer.class, new YearAdapter())
-                    .registerTypeAdapter(Set.class, new GenreAdapter())
-                    .create();
-
-            try (BufferedReader bf = new BufferedReader(new InputStreamReader(file.getInputStream()))) {
-                JsonReader reader = new JsonReader(bf);
-                reader.beginArray();
-                while (reader.hasNext()) {
-                    MovieCreateDTO dto = gson.fromJson(reader, MovieCreateDTO.class);
-                    if (!isValidMovie(dto)) {
-                        failed++;
-                        continue;
-                    }
-                    if (saveMovie(dto)) {
-                        imported++;
-                    } else {
-                        alreadyExists++;
-                    }
+    /** Where a list reads its movies from, in id order unless the query ranks them **/
+    private interface MovieSource {
+        List<MovieSummaryDTO> find(Long afterId, long offset, int limit);
+
+        long count();
+    }
+
+    private MovieSource movieSource(MovieQueryDTO query) {
+        Specification<Movie> specification = getMovieSpecification(query);
+        MovieCatalog catalog = movieCatalog.getIfAvailable();
+        if (catalog != null && catalog.supports(query)) {
+            return new MovieSource() {
+                @Override
+                public List<MovieSummaryDTO> find(Long afterId, long offset, int limit) {
+                    return catalog.find(query, afterId, offset, limit);
                 }
-            }
-            return new MovieUploadResponseDTO(imported, alreadyExists, failed);
-        } catch (JsonIOException | JsonSyntaxException |MalformedJsonException e) {
-            throw new IllegalArgumentException("Invalid JSON file");
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+
+                @Override
+                public long count() {
+                    return catalog.count(query);
+                }
+            };
         }
+        return new MovieSource() {
+            @Override
+            public List<MovieSummaryDTO> find(Long afterId, long offset, int limit) {
+                return movieRepository.findSummaries(specification, afterId, offset, limit);
+            }
+
+            @Override
+            public long count() {
+                return movieRepository.count(specification);
+            }
+        };
     }
 
-    private boolean isValidMovie(MovieCreateDTO dto) {
-        return dto.title() != null && !dto.title().isBlank()
-                && dto.year() != null && dto.year() >= 1900 && dto.year() <= Year.now().getValue()
-                && dto.genre() != null && !dto.genre().isEmpty()
-                && dto.director() != null && !dto.director().isBlank();
+    private MovieInfoDTO toInfoDTO(MovieSummaryDTO movie) {
+        return new MovieInfoDTO(movie.title(), movie.year(), movie.genre().toString(), movie.directorName());
     }
 
-    private boolean saveMovie(MovieCreateDTO dto) {
-        Movie movie = new Movie(
-                dto.title(),
-                dto.year(),
-                dto.genre(),
-                getOrCreateDirector(dto.director())
-        );
+    /**
+     * Streams the movies in the negotiated format and compression. The writer is opened with the first row,
+     * so nothing is committed to the response when there are no movies and the 404 goes out unencoded.
+     */
+    @Transactional(readOnly = true)
+    public void generateReport(MovieQueryDTO dto, ReportContent content, HttpServletResponse response) {
+        response.setContentType(content.contentType().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + content.format().getFileName());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING);
+        Specification<Movie> specification = getMovieSpecification(dto);
 
-        if (!movieRepository.existsByTitleAndDirector_Name(movie.getTitle(), movie.getDirector().getName())) {
-            movieRepository.save(movie);
-            return true;
+        long start = System.nanoTime();
+        long[] serializeNanos = {0};
+        long written;
+        try (Stream<MovieSummaryDTO> movies = movieRepository.streamSummaries(specification, REPORT_FETCH_SIZE)) {
+            written = writeReport(movies, content, response, serializeNanos);
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Error generating report. {}", e.getMessage());
+            return;
+        }
+        recordReportStage("fetch", System.nanoTime() - start - serializeNanos[0]);
+        recordReportStage("serialize", serializeNanos[0]);
+        recordRows("report", written);
+        if (written == 0) {
+            throw new EntityNotFoundException("Movies not found");
+        }
+    }
+
+    public MovieUploadResponseDTO uploadMovies(MultipartFile file) {
+        try (InputStream inputStream = file.getInputStream()) {
+            return movieImportService.importMovies(inputStream);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
         }
-        return false;
     }
 
     private Movie fromDTO(MovieCreateDTO movieCreateDTO) {
-        Director director = directorRepository.findByName(movieCreateDTO.director()).orElseGet(() -> {
-            Director newDirector = new Director(movieCreateDTO.director());
-            return directorRepository.save(newDirector);
-        });
+        return fromDTO(movieCreateDTO, resolve(movieCreateDTO.director(), movieCreateDTO.genre()));
+    }
+
+    private static Movie fromDTO(MovieCreateDTO movieCreateDTO, Resolved resolved) {
+        return new Movie(movieCreateDTO.title(), movieCreateDTO.year(), resolved.genreIds(), resolved.director());
+    }
 
-        return new Movie(movieCreateDTO.title(), movieCreateDTO.year(), movieCreateDTO.genre(), director);
+    /** Resolves the director and the genres a write names, creating missing ones in their own transactions **/
+    private Resolved resolve(String director, Set<String> genres) {
+        return new Resolved(director != null && !director.isBlank() ? directorDictionary.resolve(director) : null,
+                genres != null && !genres.isEmpty() ? genreDictionary.resolve(genres) : null);
     }
 
     private Specification<Movie> getMovieSpecification(MovieQueryDTO dto) {
@@ -180,68 +317,209 @@ public class MovieService {
         }
 
         if (dto.genre() != null && !dto.genre().isEmpty()) {
-            for (String genre : dto.genre()) {
-                specifications.add(MovieSpecifications.hasGenre(genre));
-            }
+            specifications.add(hasGenre(dto.genre(), dto.genreMatch()));
         }
 
         if (dto.director() != null && !dto.director().isBlank()) {
             specifications.add(MovieSpecifications.hasDirectorName(dto.director()));
         }
 
+        if (dto.search() != null && !dto.search().isBlank()) {
+            specifications.add(MovieSpecifications.matchesSearch(dto.search()));
+        }
+
         Specification<Movie> finalSpecification = specifications.stream()
                 .reduce(Specification::and).orElseThrow(IllegalArgumentException::new);
         return finalSpecification;
     }
 
-    private void updateMovieFields(Movie movie, MovieUpdateDTO movieUpdateDTO) {
+    /** Unknown genres cannot match, so they rule out every movie unless any one genre is enough **/
+    private Specification<Movie> hasGenre(Set<String> genres, GenreMatch match) {
+        short[] ids = genreDictionary.find(genres);
+        if (ids.length == 0 || (match != GenreMatch.ANY && ids.length < GenreDictionary.distinctCount(genres))) {
+            return MovieSpecifications.none();
+        }
+        return MovieSpecifications.hasGenre(ids, match);
+    }
+
+    private String validate(MovieBulkOperationDTO operation) {
+        if (operation == null || operation.action() == null) {
+            return "Action is required";
+        }
+        if (operation.action() == BulkAction.CREATE) {
+            return validator.validate(toCreateDTO(operation)).stream()
+                    .map(ConstraintViolation::getMessage).sorted().reduce((a, b) -> a + ", " + b).orElse(null);
+        }
+        if (operation.id() == null) {
+            return "Id is required";
+        }
+        if (operation.action() == BulkAction.UPDATE && operation.title() == null
+                && (operation.year() == null || operation.year() == 0)
+                && operation.genre() == null && operation.director() == null) {
+            return "Nothing to update";
+        }
+        return null;
+    }
+
+    /** Deletes and updates the existing movies; a title and director another movie keeps is a conflict **/
+    private void applyChanges(List<MovieBulkOperationDTO> operations, Map<Long, Integer> changes,
+                              Resolved[] resolved, MovieBulkItemDTO[] items, MovieStatsService.Delta delta, List<Long> changedIds) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        Map<Long, Movie> movies = movieRepository.findWithDirectorByIdIn(changes.keySet()).stream()
+                .collect(Collectors.toMap(Movie::getId, Function.identity()));
+        List<Long> deleted = new ArrayList<>();
+        Map<Movie, MovieUpdateDTO> updates = new LinkedHashMap<>();
+        changes.forEach((id, index) -> {
+            Movie movie = movies.get(id);
+            MovieBulkOperationDTO operation = operations.get(index);
+            if (movie == null) {
+                items[index] = new MovieBulkItemDTO(404, id, "Movie not found");
+            } else if (operation.action() == BulkAction.DELETE) {
+                delta.remove(movie);
+                deleted.add(id);
+                items[index] = new MovieBulkItemDTO(200, id, null);
+            } else {
+                updates.put(movie, new MovieUpdateDTO(operation.title(),
+                        operation.year() != null ? operation.year() : 0, operation.genre(), operation.director()));
+            }
+        });
+        if (!deleted.isEmpty()) {
+            movieRepository.deleteAllByIdInBatch(deleted);
+            changedIds.addAll(deleted);
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        Map<Movie, MovieKey> keys = new LinkedHashMap<>();
+        updates.forEach((movie, update) -> {
+            Director director = resolved[changes.get(movie.getId())].director();
+            keys.put(movie, new MovieKey(
+                    update.title() != null && !update.title().isBlank() ? update.title() : movie.getTitle(),
+                    director != null ? director.getId() : movie.getDirector().getId()));
+        });
+        // Only deleted movies free their title and director: the unique key is checked row by row as the updates
+        // are flushed, so a key another update moves away from is still taken
+        Set<Long> deletedIds = new HashSet<>(deleted);
+        Map<MovieKey, Long> owners = new HashMap<>();
+        for (Object[] row : movieRepository.findKeysByTitleIn(keys.values().stream().map(MovieKey::title).collect(Collectors.toSet()))) {
+            owners.put(new MovieKey((String) row[1], (Long) row[2]), (Long) row[0]);
+        }
+
+        Set<MovieKey> claimed = new HashSet<>();
+        updates.forEach((movie, update) -> {
+            int index = changes.get(movie.getId());
+            MovieKey key = keys.get(movie);
+            Long owner = owners.get(key);
+            if (!claimed.add(key) || (owner != null && !owner.equals(movie.getId()) && !deletedIds.contains(owner))) {
+                items[index] = new MovieBulkItemDTO(409, movie.getId(), "Movie already exists");
+                return;
+            }
+            delta.remove(movie);
+            updateMovieFields(movie, update, resolved[index]);
+            delta.add(movie);
+            changedIds.add(movie.getId());
+            items[index] = new MovieBulkItemDTO(200, movie.getId(), null);
+        });
+        // Dirty movies go out as one batch, before the creates can take their old titles
+        entityManager.unwrap(Session.class).setJdbcBatchSize(updates.size());
+        entityManager.flush();
+    }
+
+    private void applyCreates(List<MovieBulkOperationDTO> operations, List<Integer> creates,
+                              Resolved[] resolved, MovieBulkItemDTO[] items, MovieStatsService.Delta delta, List<Long> changedIds) {
+        if (creates.isEmpty()) {
+            return;
+        }
+        List<Movie> movies = creates.stream().map(index -> fromDTO(toCreateDTO(operations.get(index)), resolved[index])).toList();
+        Set<Long> inserted = movieBatchRepository.insertNew(movies).stream().map(Movie::getId).collect(Collectors.toSet());
+        for (int i = 0; i < movies.size(); i++) {
+            Movie movie = movies.get(i);
+            if (inserted.contains(movie.getId())) {
+                delta.add(movie);
+                changedIds.add(movie.getId());
+                items[creates.get(i)] = new MovieBulkItemDTO(201, movie.getId(), null);
+            } else {
+                items[creates.get(i)] = new MovieBulkItemDTO(409, null, "Movie already exists");
+            }
+        }
+    }
+
+    private static MovieCreateDTO toCreateDTO(MovieBulkOperationDTO operation) {
+        return new MovieCreateDTO(operation.title(), operation.year(), operation.genre(), operation.director());
+    }
+
+    private record MovieKey(String title, Long directorId) {
+    }
+
+    /** Director and genre ids of a write, resolved before its transaction; null when the write leaves them out **/
+    private record Resolved(Director director, short[] genreIds) {
+    }
+
+    private void updateMovieFields(Movie movie, MovieUpdateDTO movieUpdateDTO, Resolved resolved) {
         if (movieUpdateDTO.title() != null && !movieUpdateDTO.title().isBlank()) {
             movie.setTitle(movieUpdateDTO.title());
         }
         if (movieUpdateDTO.year() != 0 && movieUpdateDTO.year() < Year.now().getValue()) {
             movie.setYear(movieUpdateDTO.year());
         }
-        if (movieUpdateDTO.genre() != null && !movieUpdateDTO.genre().isEmpty()) {
-            movie.setGenre(movieUpdateDTO.genre());
+        if (resolved.genreIds() != null) {
+            movie.setGenreIds(resolved.genreIds());
         }
-        if (movieUpdateDTO.director() != null && !movieUpdateDTO.director().isBlank()) {
-            Director director = directorRepository.findByName(movieUpdateDTO.director()).orElseGet(() -> {
-                Director newDirector = new Director(movieUpdateDTO.director());
-                directorRepository.save(newDirector);
-                return newDirector;
-            });
-            movie.setDirector(director);
+        if (resolved.director() != null) {
+            movie.setDirector(resolved.director());
         }
     }
 
-    private String convertMoviesToCSV(List<Movie> movies) {
-        StringWriter sw = new StringWriter();
-        try (CSVWriter csvWriter = new CSVWriter(sw)) {
-            csvWriter.writeNext(new String[]{"Id", "Title", "Year", "Genre", "Director"});
-
-            for (Movie movie : movies) {
-                csvWriter.writeNext(new String[]{
-                        String.valueOf(movie.getId()),
-                        movie.getTitle(),
-                        String.valueOf(movie.getYear()),
-                        String.join(",", movie.getGenre()),
-                        movie.getDirector().getName()
-                });
+    /** Rows go straight through the encoder to the servlet output stream and the response is sent chunked **/
+    private long writeReport(Stream<MovieSummaryDTO> movies, ReportContent content, HttpServletResponse response,
+                             long[] serializeNanos) throws IOException {
+        long written = 0;
+        ReportWriter writer = null;
+        try {
+            for (Iterator<MovieSummaryDTO> iterator = movies.iterator(); iterator.hasNext(); ) {
+                MovieSummaryDTO movie = iterator.next();
+                long start = System.nanoTime();
+                if (writer == null) {
+                    writer = openReportWriter(content, response);
+                }
+                writer.write(movie);
+                written++;
+                serializeNanos[0] += System.nanoTime() - start;
+            }
+        } finally {
+            if (writer != null) {
+                long start = System.nanoTime();
+                writer.close();
+                serializeNanos[0] += System.nanoTime() - start;
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
+        return written;
+    }
 
-        return sw.toString();
+    private void recordReportStage(String stage, long nanos) {
+        Timer.builder("movie.report.stage")
+                .description("Time spent reading rows and encoding a report")
+                .tag("stage", stage)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
     }
 
+    private void recordRows(String query, long rows) {
+        DistributionSummary.builder("movie.query.rows")
+                .baseUnit("rows")
+                .tag("query", query)
+                .register(meterRegistry)
+                .record(rows);
+    }
 
-    private Director getOrCreateDirector(String directorName) {
-        Director director = directorRepository.findByName(directorName).orElse(new Director(directorName));
-        if (director.getId() == null) {
-            directorRepository.save(director);
+    private ReportWriter openReportWriter(ReportContent content, HttpServletResponse response) throws IOException {
+        if (content.encoding() != ReportEncoding.IDENTITY) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, content.encoding().getToken());
         }
-        return director;
+        return content.format().open(content.encoding().wrap(response.getOutputStream()), reportAllocator);
     }
 
 }
@@ -0,0 +1,182 @@
+package com.example.springrest.service;
+
+import com.example.springrest.dto.MovieStatsDTO;
+import com.example.springrest.model.Movie;
+import com.example.springrest.repository.MovieStatsRepository;
+import com.example.springrest.repository.MovieStatsRepository.Dimension;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Catalog statistics answered from aggregate tables instead of scanning the movies. The write paths record
+ * their changes as deltas, which are merged after their transaction commits and flushed to the counters in
+ * one short transaction every {@code movie.stats.flush-delay} milliseconds, so writers never wait on the hot
+ * counter rows. Reads flush first, so a node sees its own writes. Writes that bypass the services make the
+ * counters drift, so they can be rebuilt from the catalog on a schedule ({@code movie.stats.rebuild-cron}).
+ */
+@Service
+public class MovieStatsService {
+    public static final int MAX_LIMIT = 1000;
+
+    private final MovieStatsRepository movieStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    /** Guards the pending delta, which committed writes merge into **/
+    private final Lock pendingLock = new ReentrantLock();
+    /** Lets one flush or rebuild at a time write the counters **/
+    private final Lock flushLock = new ReentrantLock();
+    private Delta pending = new Delta();
+
+    public MovieStatsService(MovieStatsRepository movieStatsRepository, PlatformTransactionManager transactionManager) {
+        this.movieStatsRepository = movieStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public MovieStatsDTO getStats(String by, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        Dimension dimension = Dimension.valueOf(by.toUpperCase(Locale.ROOT));
+        flush();
+        return new MovieStatsDTO(dimension.name().toLowerCase(Locale.ROOT), movieStatsRepository.countMovies(),
+                movieStatsRepository.findTop(dimension, limit));
+    }
+
+    public void recordAdded(Collection<Movie> movies) {
+        Delta delta = new Delta();
+        movies.forEach(delta::add);
+        apply(delta);
+    }
+
+    public void recordRemoved(Movie movie) {
+        apply(new Delta().remove(movie));
+    }
+
+    /**
+     * Records the counters of a changed movie: remove it before the change, add it afterwards. Inside a
+     * transaction the delta is only kept once it commits.
+     */
+    public void apply(Delta delta) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            merge(delta);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                merge(delta);
+            }
+        });
+    }
+
+    /** Writes the pending deltas to the counters, keeping them for the next flush when that fails **/
+    @Scheduled(fixedDelayString = "${movie.stats.flush-delay:1000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Delta delta = takePending();
+            if (delta.counts.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> delta.counts.forEach((dimension, counts) -> {
+                    counts.values().removeIf(count -> count == 0);
+                    movieStatsRepository.add(dimension, counts);
+                }));
+            } catch (RuntimeException e) {
+                merge(delta);
+                throw e;
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /** Must run before the director and its movies are deleted **/
+    public void recordDirectorRemoved(Long directorId) {
+        Delta delta = new Delta();
+        for (Dimension dimension : Dimension.values()) {
+            movieStatsRepository.countByDirector(dimension, directorId)
+                    .forEach((key, count) -> delta.count(dimension, key, -count));
+        }
+        apply(delta);
+    }
+
+    /** The catalog already holds every committed write, so the pending deltas are dropped **/
+    @Scheduled(cron = "${movie.stats.rebuild-cron:-}")
+    public void rebuild() {
+        flushLock.lock();
+        try {
+            takePending();
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Dimension dimension : Dimension.values()) {
+                    movieStatsRepository.rebuild(dimension);
+                }
+            });
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void merge(Delta delta) {
+        pendingLock.lock();
+        try {
+            pending.addAll(delta);
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    private Delta takePending() {
+        pendingLock.lock();
+        try {
+            Delta delta = pending;
+            pending = new Delta();
+            return delta;
+        } finally {
+            pendingLock.unlock();
+        }
+    }
+
+    /**
+     * Counter changes collected for a write, grouped so every touched group is updated once. Groups are
+     * kept sorted, so nodes flushing concurrently lock the counter rows in the same order and cannot deadlock.
+     */
+    public static class Delta {
+        private final Map<Dimension, Map<Object, Long>> counts = new EnumMap<>(Dimension.class);
+
+        public Delta add(Movie movie) {
+            return count(movie, 1);
+        }
+
+        public Delta remove(Movie movie) {
+            return count(movie, -1);
+        }
+
+        private Delta count(Movie movie, long sign) {
+            for (short genreId : movie.getGenreIds()) {
+                count(Dimension.GENRE, genreId, sign);
+            }
+            count(Dimension.YEAR, movie.getYear(), sign);
+            if (movie.getDirector() != null) {
+                count(Dimension.DIRECTOR, movie.getDirector().getId(), sign);
+            }
+            return this;
+        }
+
+        private void addAll(Delta other) {
+            other.counts.forEach((dimension, counts) -> counts.forEach((key, count) -> count(dimension, key, count)));
+        }
+
+        private void count(Dimension dimension, Object key, long sign) {
+            counts.computeIfAbsent(dimension, d -> new TreeMap<>()).merge(key, sign, Long::sum);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.springrest.service;
+
+import com.example.springrest.cache.EntityChangedEvent;
+import com.example.springrest.cache.InvalidationBus;
+import com.example.springrest.dto.SuggestionDTO;
+import com.example.springrest.repository.DirectorRepository;
+import com.example.springrest.repository.MovieRepository;
+import com.example.springrest.service.utils.PrefixIndex;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Autocomplete over movie titles and director names, answered from in-memory prefix indexes without
+ * touching the database. The indexes are loaded when the application starts and then follow the changes
+ * delivered by the invalidation bus, so writes made on other nodes show up as well.
+ */
+@Service
+public class SuggestionService {
+    public static final int MAX_LIMIT = 50;
+    private static final int REFRESH_BATCH_SIZE = 1000;
+
+    private final Suggestions movies;
+    private final Suggestions directors;
+
+    public SuggestionService(MovieRepository movieRepository,
+                             DirectorRepository directorRepository,
+                             PlatformTransactionManager transactionManager,
+                             InvalidationBus invalidationBus) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        this.movies = new Suggestions(readOnly, movieRepository::streamIdsAndTitles, movieRepository::findIdsAndTitles);
+        this.directors = new Suggestions(readOnly, directorRepository::streamIdsAndNames,
+                directorRepository::findIdsAndNames);
+        invalidationBus.subscribe(this::apply);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        movies.rebuild();
+        directors.rebuild();
+    }
+
+    public List<SuggestionDTO> suggestMovies(String query, int limit) {
+        return movies.suggest(query, limit);
+    }
+
+    public List<SuggestionDTO> suggestDirectors(String query, int limit) {
+        return directors.suggest(query, limit);
+    }
+
+    private void apply(EntityChangedEvent event) {
+        Suggestions suggestions = switch (event.type()) {
+            case MOVIE -> movies;
+            case DIRECTOR -> directors;
+        };
+        if (event.isAll()) {
+            suggestions.rebuild();
+        } else {
+            suggestions.refresh(event.ids());
+        }
+    }
+
+    /** One index together with the queries that fill it **/
+    private static class Suggestions {
+        private final TransactionTemplate transactionTemplate;
+        private final Supplier<Stream<Object[]>> loadAll;
+        private final Function<Collection<Long>, List<Object[]>> loadByIds;
+
+        private volatile PrefixIndex index = new PrefixIndex();
+        /** Ids changed while a rebuild is reading the table, replayed on the new index once it is in place **/
+        private volatile Queue<Long> changedDuringRebuild;
+
+        Suggestions(TransactionTemplate transactionTemplate, Supplier<Stream<Object[]>> loadAll,
+                    Function<Collection<Long>, List<Object[]>> loadByIds) {
+            this.transactionTemplate = transactionTemplate;
+            this.loadAll = loadAll;
+            this.loadByIds = loadByIds;
+        }
+
+        List<SuggestionDTO> suggest(String query, int limit) {
+            if (limit < 1 || limit > MAX_LIMIT) {
+                throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+            }
+            PrefixIndex current = index;
+            List<SuggestionDTO> result = new ArrayList<>(limit);
+            for (Long id : current.find(query, limit)) {
+                String text = current.text(id);
+                if (text != null) {
+                    result.add(new SuggestionDTO(id, text));
+                }
+            }
+            return result;
+        }
+
+        void rebuild() {
+            Queue<Long> changed = new ConcurrentLinkedQueue<>();
+            changedDuringRebuild = changed;
+            PrefixIndex rebuilt = new PrefixIndex();
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = loadAll.get()) {
+                    rows.forEach(row -> rebuilt.put((Long) row[0], (String) row[1]));
+                }
+            });
+            index = rebuilt;
+            changedDuringRebuild = null;
+            if (!changed.isEmpty()) {
+                refresh(new HashSet<>(changed));
+            }
+        }
+
+        void refresh(Collection<Long> ids) {
+            Queue<Long> changed = changedDuringRebuild;
+            if (changed != null) {
+                changed.addAll(ids);
+            }
+            PrefixIndex current = index;
+            List<Long> pending = new ArrayList<>(ids);
+            for (int from = 0; from < pending.size(); from += REFRESH_BATCH_SIZE) {
+                Set<Long> missing = new HashSet<>(pending.subList(from, Math.min(from + REFRESH_BATCH_SIZE, pending.size())));
+                for (Object[] row : loadByIds.apply(missing)) {
+                    current.put((Long) row[0], (String) row[1]);
+                    missing.remove((Long) row[0]);
+                }
+                missing.forEach(current::remove);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.springrest.service.report;
+
+import com.example.springrest.dto.MovieSummaryDTO;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.complex.ListVector;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Arrow IPC stream: rows are collected into column vectors and sent as one record batch per
+ * {@value #BATCH_SIZE} rows, so memory stays bounded however large the report is. The vectors live in a child
+ * of the shared report allocator, which is closed with the writer.
+ */
+class ArrowReportWriter implements ReportWriter {
+    static final Schema SCHEMA = new Schema(List.of(
+            Field.notNullable("id", new ArrowType.Int(64, true)),
+            Field.nullable("title", ArrowType.Utf8.INSTANCE),
+            Field.notNullable("year", new ArrowType.Int(32, true)),
+            new Field("genre", FieldType.nullable(ArrowType.List.INSTANCE),
+                    List.of(Field.nullable("item", ArrowType.Utf8.INSTANCE))),
+            Field.nullable("director", ArrowType.Utf8.INSTANCE)));
+    private static final int BATCH_SIZE = 4096;
+
+    private final BufferAllocator allocator;
+    private final VectorSchemaRoot root;
+    private final ArrowStreamWriter streamWriter;
+    private final BigIntVector id;
+    private final VarCharVector title;
+    private final IntVector year;
+    private final ListVector genre;
+    private final VarCharVector director;
+    private int rows;
+
+    ArrowReportWriter(OutputStream outputStream, BufferAllocator parent) throws IOException {
+        allocator = parent.newChildAllocator("report", 0, parent.getLimit());
+        root = VectorSchemaRoot.create(SCHEMA, allocator);
+        id = (BigIntVector) root.getVector("id");
+        title = (VarCharVector) root.getVector("title");
+        year = (IntVector) root.getVector("year");
+        genre = (ListVector) root.getVector("genre");
+        director = (VarCharVector) root.getVector("director");
+        try {
+            streamWriter = new ArrowStreamWriter(root, null, Channels.newChannel(outputStream));
+            streamWriter.start();
+        } catch (IOException | RuntimeException e) {
+            root.close();
+            allocator.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void write(MovieSummaryDTO movie) throws IOException {
+        if (rows == 0) {
+            root.allocateNew();
+        }
+        id.setSafe(rows, movie.id());
+        setString(title, rows, movie.title());
+        year.setSafe(rows, movie.year());
+        VarCharVector genres = (VarCharVector) genre.getDataVector();
+        int offset = genre.startNewValue(rows);
+        int count = 0;
+        for (String value : movie.genre()) {
+            genres.setSafe(offset + count++, value.getBytes(StandardCharsets.UTF_8));
+        }
+        genre.endValue(rows, count);
+        setString(director, rows, movie.directorName());
+        if (++rows == BATCH_SIZE) {
+            writeBatch();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (rows > 0) {
+                writeBatch();
+            }
+            streamWriter.end();
+            streamWriter.close();
+        } finally {
+            root.close();
+            allocator.close();
+        }
+    }
+
+    private void writeBatch() throws IOException {
+        root.setRowCount(rows);
+        streamWriter.writeBatch();
+        rows = 0;
+    }
+
+    private static void setString(VarCharVector vector, int index, String value) {
+        if (value == null) {
+            vector.setNull(index);
+        } else {
+            vector.setSafe(index, value.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
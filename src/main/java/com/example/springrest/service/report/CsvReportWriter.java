@@ -0,0 +1,36 @@
+package com.example.springrest.service.report;
+
+import com.example.springrest.dto.MovieSummaryDTO;
+import com.opencsv.CSVWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+
+/** RFC 4180 CSV: fields with separators, quotes or line breaks are quoted and their quotes doubled **/
+class CsvReportWriter implements ReportWriter {
+    private final CSVWriter csvWriter;
+
+    CsvReportWriter(OutputStream outputStream) {
+        csvWriter = new CSVWriter(new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)));
+        csvWriter.writeNext(new String[]{"Id", "Title", "Year", "Genre", "Director"}, false);
+    }
+
+    @Override
+    public void write(MovieSummaryDTO movie) {
+        csvWriter.writeNext(new String[]{
+                String.valueOf(movie.id()),
+                movie.title(),
+                String.valueOf(movie.year()),
+                String.join(",", movie.genre()),
+                movie.directorName()
+        }, false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        csvWriter.close();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.springrest.service.report;
+
+import com.example.springrest.dto.MovieSummaryDTO;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/** One JSON object per line, so clients can parse the report while it is still downloading **/
+class NdjsonReportWriter implements ReportWriter {
+    private final Writer writer;
+    private final JsonWriter jsonWriter;
+
+    NdjsonReportWriter(OutputStream outputStream) {
+        writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        jsonWriter = new JsonWriter(writer);
+        // Lenient mode allows a sequence of top-level values
+        jsonWriter.setLenient(true);
+    }
+
+    @Override
+    public void write(MovieSummaryDTO movie) throws IOException {
+        jsonWriter.beginObject()
+                .name("id").value(movie.id())
+                .name("title").value(movie.title())
+                .name("year").value(movie.year())
+                .name("genre").beginArray();
+        for (String genre : movie.genre()) {
+            jsonWriter.value(genre);
+        }
+        jsonWriter.endArray()
+                .name("director").value(movie.directorName())
+                .endObject();
+        writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        jsonWriter.close();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.springrest.service.report;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+
+/**
+ * Format and compression of a report, negotiated from the {@code Accept} and {@code Accept-Encoding} headers.
+ * CSV is the default and keeps the generic {@code application/octet-stream} type unless {@code text/csv}
+ * was asked for explicitly; it is also sent when none of the accepted types is a report format.
+ */
+public record ReportContent(ReportFormat format, MediaType contentType, ReportEncoding encoding) {
+
+    public static ReportContent negotiate(HttpHeaders headers) {
+        ReportEncoding encoding = negotiateEncoding(headers.getFirst(HttpHeaders.ACCEPT_ENCODING));
+        List<MediaType> accepted = new ArrayList<>(headers.getAccept());
+        if (accepted.isEmpty()) {
+            return new ReportContent(ReportFormat.CSV, MediaType.APPLICATION_OCTET_STREAM, encoding);
+        }
+        accepted.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.isWildcardType() || mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_OCTET_STREAM)) {
+                return new ReportContent(ReportFormat.CSV, MediaType.APPLICATION_OCTET_STREAM, encoding);
+            }
+            for (ReportFormat format : ReportFormat.values()) {
+                if (mediaType.includes(format.getMediaType())) {
+                    return new ReportContent(format, format.getMediaType(), encoding);
+                }
+            }
+        }
+        return new ReportContent(ReportFormat.CSV, MediaType.APPLICATION_OCTET_STREAM, encoding);
+    }
+
+    /** Highest weight wins; on a tie the encoding declared first in {@link ReportEncoding} is used **/
+    private static ReportEncoding negotiateEncoding(String acceptEncoding) {
+        if (!StringUtils.hasText(acceptEncoding)) {
+            return ReportEncoding.IDENTITY;
+        }
+        Map<String, Double> weights = new HashMap<>();
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            double weight = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        weight = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        weight = 0;
+                    }
+                }
+            }
+            weights.put(parts[0].trim().toLowerCase(Locale.ROOT), weight);
+        }
+
+        ReportEncoding best = ReportEncoding.IDENTITY;
+        double bestWeight = 0;
+        for (ReportEncoding encoding : ReportEncoding.values()) {
+            double weight = weights.getOrDefault(encoding.getToken(), weights.getOrDefault("*", 0.0));
+            if (encoding != ReportEncoding.IDENTITY && weight > bestWeight) {
+                best = encoding;
+                bestWeight = weight;
+            }
+        }
+        return best;
+    }
+}
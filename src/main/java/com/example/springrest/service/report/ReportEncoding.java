@@ -0,0 +1,34 @@
+package com.example.springrest.service.report;
+
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/** Content codings for reports, in order of preference when a client accepts several with the same weight **/
+public enum ReportEncoding {
+    ZSTD("zstd"),
+    GZIP("gzip"),
+    IDENTITY("identity");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String token;
+
+    ReportEncoding(String token) {
+        this.token = token;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public OutputStream wrap(OutputStream outputStream) throws IOException {
+        return switch (this) {
+            case ZSTD -> new ZstdOutputStream(outputStream);
+            case GZIP -> new GZIPOutputStream(outputStream, BUFFER_SIZE);
+            case IDENTITY -> outputStream;
+        };
+    }
+}
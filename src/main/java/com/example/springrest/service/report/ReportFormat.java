@@ -0,0 +1,38 @@
+package com.example.springrest.service.report;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public enum ReportFormat {
+    CSV(new MediaType("text", "csv"), "csv"),
+    NDJSON(new MediaType("application", "x-ndjson"), "ndjson"),
+    ARROW(new MediaType("application", "vnd.apache.arrow.stream"), "arrows");
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    ReportFormat(MediaType mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    public String getFileName() {
+        return "movies." + extension;
+    }
+
+    /** The allocator is only used by Arrow, which takes a child of it for the vectors of the report **/
+    public ReportWriter open(OutputStream outputStream, BufferAllocator allocator) throws IOException {
+        return switch (this) {
+            case CSV -> new CsvReportWriter(outputStream);
+            case NDJSON -> new NdjsonReportWriter(outputStream);
+            case ARROW -> new ArrowReportWriter(outputStream, allocator);
+        };
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.springrest.service.report;
+
+import com.example.springrest.dto.MovieSummaryDTO;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/** Encodes report rows as they come off the cursor; closing it finishes the format and the stream **/
+public interface ReportWriter extends Closeable {
+    void write(MovieSummaryDTO movie) throws IOException;
+}
@@ -0,0 +1,100 @@
+package com.example.springrest.service.upload;
+
+import com.example.springrest.dto.MovieCreateDTO;
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * CSV in the layout of the report: {@code Id,Title,Year,Genre,Director} with the genres joined by commas.
+ * The header is required and the id is ignored. A row with the wrong number of columns or an unreadable
+ * year fails on its own.
+ */
+class CsvRecordReader implements MovieRecordReader {
+    private static final String[] HEADER = {"Id", "Title", "Year", "Genre", "Director"};
+
+    private final CSVReader reader;
+    private String[] row;
+
+    CsvRecordReader(Reader reader) throws IOException {
+        this.reader = new CSVReader(reader);
+        String[] header = readRow();
+        if (header == null || !isHeader(header)) {
+            throw new IllegalArgumentException("Invalid CSV file, expected the header " + String.join(",", HEADER));
+        }
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        while (row == null) {
+            String[] next = readRow();
+            if (next == null) {
+                return false;
+            }
+            if (next.length > 1 || !next[0].isBlank()) {
+                row = next;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public MovieCreateDTO next() throws IOException {
+        if (!hasNext()) {
+            throw new IllegalStateException("No more records");
+        }
+        String[] record = row;
+        row = null;
+        if (record.length != HEADER.length) {
+            return null;
+        }
+        return new MovieCreateDTO(record[1], parseYear(record[2]), parseGenres(record[3]), record[4]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String[] readRow() throws IOException {
+        try {
+            return reader.readNext();
+        } catch (CsvValidationException e) {
+            throw new IllegalArgumentException("Invalid CSV file");
+        }
+    }
+
+    private static boolean isHeader(String[] row) {
+        if (row.length != HEADER.length) {
+            return false;
+        }
+        for (int i = 0; i < HEADER.length; i++) {
+            if (!HEADER[i].equalsIgnoreCase(row[i].trim())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Integer parseYear(String year) {
+        try {
+            return Integer.parseInt(year.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Set<String> parseGenres(String genres) {
+        Set<String> genre = new LinkedHashSet<>();
+        for (String name : genres.split(",")) {
+            if (!name.isBlank()) {
+                genre.add(name.trim());
+            }
+        }
+        return genre;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.springrest.service.upload;
+
+import com.example.springrest.dto.MovieCreateDTO;
+import com.example.springrest.service.utils.MovieGson;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/** One top-level JSON array. Records are not delimited, so any malformed record rejects the whole file **/
+class JsonArrayRecordReader implements MovieRecordReader {
+    private final Gson gson = MovieGson.create();
+    private final JsonReader reader;
+
+    JsonArrayRecordReader(Reader reader) throws IOException {
+        this.reader = new JsonReader(reader);
+        try {
+            this.reader.beginArray();
+        } catch (MalformedJsonException | IllegalStateException e) {
+            throw invalid();
+        }
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        try {
+            return reader.hasNext();
+        } catch (MalformedJsonException e) {
+            throw invalid();
+        }
+    }
+
+    @Override
+    public MovieCreateDTO next() {
+        try {
+            return gson.fromJson(reader, MovieCreateDTO.class);
+        } catch (JsonParseException e) {
+            throw invalid();
+        }
+    }
+
+    @Override
+    public void skip() throws IOException {
+        try {
+            reader.skipValue();
+        } catch (MalformedJsonException e) {
+            throw invalid();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static IllegalArgumentException invalid() {
+        return new IllegalArgumentException("Invalid JSON file");
+    }
+}
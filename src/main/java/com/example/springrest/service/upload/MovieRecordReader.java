@@ -0,0 +1,21 @@
+package com.example.springrest.service.upload;
+
+import com.example.springrest.dto.MovieCreateDTO;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the records of an upload one at a time. A record that cannot be read is returned as {@code null}
+ * and counted as failed, while a file that cannot be read any further is rejected as a whole.
+ */
+public interface MovieRecordReader extends Closeable {
+    boolean hasNext() throws IOException;
+
+    MovieCreateDTO next() throws IOException;
+
+    /** Skips a record that an earlier run has already imported **/
+    default void skip() throws IOException {
+        next();
+    }
+}
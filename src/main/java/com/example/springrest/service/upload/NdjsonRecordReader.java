@@ -0,0 +1,63 @@
+package com.example.springrest.service.upload;
+
+import com.example.springrest.dto.MovieCreateDTO;
+import com.example.springrest.service.utils.MovieGson;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/** One JSON object per line; a line that does not parse only fails its own record. Blank lines are ignored **/
+class NdjsonRecordReader implements MovieRecordReader {
+    private final Gson gson = MovieGson.create();
+    private final BufferedReader reader;
+    private String line;
+
+    NdjsonRecordReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        while (line == null) {
+            String next = reader.readLine();
+            if (next == null) {
+                return false;
+            }
+            if (!next.isBlank()) {
+                line = next;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public MovieCreateDTO next() throws IOException {
+        String record = take();
+        try {
+            return gson.fromJson(record, MovieCreateDTO.class);
+        } catch (JsonParseException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void skip() throws IOException {
+        take();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String take() throws IOException {
+        if (!hasNext()) {
+            throw new IllegalStateException("No more records");
+        }
+        String record = line;
+        line = null;
+        return record;
+    }
+}
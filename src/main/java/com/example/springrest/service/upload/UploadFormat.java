@@ -0,0 +1,82 @@
+package com.example.springrest.service.upload;
+
+import com.github.luben.zstd.ZstdInputStream;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Formats accepted for uploads. Both the format and the compression are detected from the content, not the
+ * file name, so a spooled upload is read the same way when its job is resumed after a restart.
+ */
+public enum UploadFormat {
+    JSON_ARRAY,
+    NDJSON,
+    CSV;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] GZIP_MAGIC = {(byte) 0x1f, (byte) 0x8b};
+    private static final byte[] ZSTD_MAGIC = {(byte) 0x28, (byte) 0xb5, (byte) 0x2f, (byte) 0xfd};
+
+    /** Opens a reader for the upload, decompressing gzip and zstd on the fly **/
+    public static MovieRecordReader open(InputStream inputStream) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(decompress(inputStream), StandardCharsets.UTF_8), BUFFER_SIZE);
+        return detect(reader).reader(reader);
+    }
+
+    private MovieRecordReader reader(BufferedReader reader) throws IOException {
+        return switch (this) {
+            case JSON_ARRAY -> new JsonArrayRecordReader(reader);
+            case NDJSON -> new NdjsonRecordReader(reader);
+            case CSV -> new CsvRecordReader(reader);
+        };
+    }
+
+    private static InputStream decompress(InputStream inputStream) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(inputStream, BUFFER_SIZE);
+        buffered.mark(ZSTD_MAGIC.length);
+        byte[] head = buffered.readNBytes(ZSTD_MAGIC.length);
+        buffered.reset();
+        if (startsWith(head, GZIP_MAGIC)) {
+            return new GZIPInputStream(buffered, BUFFER_SIZE);
+        }
+        if (startsWith(head, ZSTD_MAGIC)) {
+            return new ZstdInputStream(buffered);
+        }
+        return buffered;
+    }
+
+    /** Looks at the first character after leading whitespace and a byte order mark, which it consumes **/
+    private static UploadFormat detect(BufferedReader reader) throws IOException {
+        while (true) {
+            reader.mark(1);
+            int c = reader.read();
+            if (c == -1) {
+                throw new IllegalArgumentException("Empty file");
+            }
+            if (Character.isWhitespace(c) || c == '\uFEFF') {
+                continue;
+            }
+            reader.reset();
+            return switch (c) {
+                case '[' -> JSON_ARRAY;
+                case '{' -> NDJSON;
+                default -> CSV;
+            };
+        }
+    }
+
+    private static boolean startsWith(byte[] bytes, byte[] prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
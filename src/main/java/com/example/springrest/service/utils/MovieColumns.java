@@ -0,0 +1,485 @@
+package com.example.springrest.service.utils;
+
+import com.example.springrest.dto.GenreMatch;
+import org.roaringbitmap.longlong.PeekableLongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Column-oriented copy of the movie table for in-memory filtering. Every attribute is a primitive array
+ * indexed by row and rows are kept in id order, so a page is a single scan that stops once it is full.
+ * Titles and directors are dictionary-encoded as int codes and the genres of a row are a bitset spread
+ * over one long column per 64 genre ids, so every filter is an int compare or a mask test.
+ * <p>
+ * Year, genre and director filters are answered by inverted indexes instead: each value maps to a compressed
+ * bitmap of movie ids, the bitmaps of a query are intersected, the page is read by id and the total is the
+ * cardinality of the intersection. A title filter, which is as unique as the id, and a director filter that
+ * matches many directors are checked on the candidate rows instead, or by a full scan when nothing else is set.
+ * Safe for concurrent use; scans share a read lock and changes take the write lock.
+ */
+public class MovieColumns {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NO_DIRECTOR = -1;
+    /** A director filter matching more directors than this is checked on the rows instead of merging their bitmaps **/
+    private static final int MAX_DIRECTOR_BITMAPS = 64;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private int size;
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private int[] years = new int[INITIAL_CAPACITY];
+    private int[] titleCodes = new int[INITIAL_CAPACITY];
+    private int[] directorCodes = new int[INITIAL_CAPACITY];
+    /** genreWords[w][row] holds the bits of genre ids 64 * w to 64 * w + 63 **/
+    private long[][] genreWords = new long[0][];
+
+    /** Titles are never removed from the dictionary; a rebuild starts a fresh one **/
+    private final Map<String, Integer> titleDictionary = new HashMap<>();
+    private final List<String> titles = new ArrayList<>();
+    private final Map<Long, Integer> directorDictionary = new HashMap<>();
+    private final List<String> directorNames = new ArrayList<>();
+    private final List<String> directorKeys = new ArrayList<>();
+
+    private final Map<Integer, Roaring64Bitmap> yearIndex = new HashMap<>();
+    /** Indexed by genre id **/
+    private Roaring64Bitmap[] genreIndex = new Roaring64Bitmap[0];
+    /** Indexed by director code **/
+    private final List<Roaring64Bitmap> directorIndex = new ArrayList<>();
+
+    /** Movies with all of these attributes; a null attribute is not filtered on **/
+    public record Filter(String title, Integer year, short[] genreIds, GenreMatch genreMatch, String directorName) {
+    }
+
+    public record Row(long id, String title, int year, short[] genreIds, String directorName) {
+    }
+
+    /** Adds the movie or replaces the row previously stored for the id **/
+    public void put(long id, String title, int year, short[] genreIds, Long directorId, String directorName) {
+        lock.writeLock().lock();
+        try {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            if (row < 0) {
+                row = -row - 1;
+                insertRow(row);
+                ids[row] = id;
+            } else {
+                unindex(row);
+            }
+            years[row] = year;
+            titleCodes[row] = titleDictionary.computeIfAbsent(title, key -> {
+                titles.add(key);
+                return titles.size() - 1;
+            });
+            directorCodes[row] = directorId == null ? NO_DIRECTOR : directorCode(directorId, directorName);
+            for (long[] words : genreWords) {
+                words[row] = 0;
+            }
+            for (short genreId : genreIds) {
+                genreColumn(genreId >>> 6)[row] |= 1L << genreId;
+            }
+            index(row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            int row = Arrays.binarySearch(ids, 0, size, id);
+            if (row >= 0) {
+                unindex(row);
+                removeRow(row);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Renames a director the rows already refer to; unknown directors are ignored **/
+    public void renameDirector(long directorId, String name) {
+        lock.writeLock().lock();
+        try {
+            Integer code = directorDictionary.get(directorId);
+            if (code != null) {
+                directorNames.set(code, name);
+                directorKeys.set(code, lowerCase(name));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} matching rows in id order, starting right after {@code afterId} when it is set
+     * and skipping the first {@code offset} matches.
+     */
+    public List<Row> find(Filter filter, Long afterId, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            Scan scan = new Scan(filter);
+            List<Row> rows = new ArrayList<>(Math.min(limit, 64));
+            if (scan.empty) {
+                return rows;
+            }
+            Roaring64Bitmap candidates = scan.candidates;
+            if (candidates == null) {
+                long skipped = 0;
+                for (int row = firstRowAfter(afterId); row < size && rows.size() < limit; row++) {
+                    if (scan.matches(row) && skipped++ >= offset) {
+                        rows.add(toRow(row));
+                    }
+                }
+                return rows;
+            }
+
+            long skipped = 0;
+            PeekableLongIterator iterator = candidates.getLongIterator();
+            if (afterId != null) {
+                iterator.advanceIfNeeded(afterId + 1);
+            } else if (scan.exact && offset > 0) {
+                // Every candidate matches, so the page starts at the offset-th one
+                if (offset >= candidates.getLongCardinality()) {
+                    return rows;
+                }
+                iterator.advanceIfNeeded(candidates.select(offset));
+                skipped = offset;
+            }
+            while (iterator.hasNext() && rows.size() < limit) {
+                int row = Arrays.binarySearch(ids, 0, size, iterator.next());
+                if (scan.matches(row) && skipped++ >= offset) {
+                    rows.add(toRow(row));
+                }
+            }
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long count(Filter filter) {
+        lock.readLock().lock();
+        try {
+            Scan scan = new Scan(filter);
+            if (scan.empty) {
+                return 0;
+            }
+            Roaring64Bitmap candidates = scan.candidates;
+            if (candidates != null && scan.exact) {
+                return candidates.getLongCardinality();
+            }
+            long count = 0;
+            if (candidates != null) {
+                for (PeekableLongIterator iterator = candidates.getLongIterator(); iterator.hasNext(); ) {
+                    if (scan.matches(Arrays.binarySearch(ids, 0, size, iterator.next()))) {
+                        count++;
+                    }
+                }
+                return count;
+            }
+            for (int row = 0; row < size; row++) {
+                if (scan.matches(row)) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** A filter translated into codes and masks once, before the rows are scanned **/
+    private class Scan {
+        private final Filter filter;
+        private final int titleCode;
+        private final int year;
+        private final boolean byYear;
+        private final long[] genreMask;
+        private final boolean anyGenre;
+        /** Indexed by director code, null when not filtering by director **/
+        private final boolean[] directors;
+        private final int matchingDirectors;
+        private final boolean empty;
+        /** Null when no filter can be served by the indexes **/
+        private final Roaring64Bitmap candidates;
+        /** Whether every candidate matches, or the title or a broad director filter remains to be checked **/
+        private final boolean exact;
+
+        Scan(Filter filter) {
+            this.filter = filter;
+            Integer code = filter.title() == null ? null : titleDictionary.get(filter.title());
+            titleCode = filter.title() == null ? -1 : code == null ? -2 : code;
+            byYear = filter.year() != null;
+            year = byYear ? filter.year() : 0;
+            anyGenre = filter.genreMatch() == GenreMatch.ANY;
+
+            boolean unknownGenre = false;
+            if (filter.genreIds() == null) {
+                genreMask = null;
+            } else {
+                genreMask = new long[genreWords.length];
+                for (short genreId : filter.genreIds()) {
+                    if (genreId >>> 6 < genreMask.length) {
+                        genreMask[genreId >>> 6] |= 1L << genreId;
+                    } else {
+                        // No row has a genre beyond the columns
+                        unknownGenre = true;
+                    }
+                }
+            }
+
+            int matching = 0;
+            if (filter.directorName() == null) {
+                directors = null;
+            } else {
+                String key = filter.directorName().trim().toLowerCase(Locale.ROOT);
+                directors = new boolean[directorKeys.size()];
+                for (int i = 0; i < directors.length; i++) {
+                    directors[i] = directorKeys.get(i).contains(key);
+                    matching += directors[i] ? 1 : 0;
+                }
+            }
+            matchingDirectors = matching;
+
+            empty = titleCode == -2
+                    || (genreMask != null && (anyGenre ? isZero(genreMask) : unknownGenre || isZero(genreMask)));
+            candidates = empty ? null : candidates();
+            exact = titleCode < 0 && (directors == null || matchingDirectors <= MAX_DIRECTOR_BITMAPS);
+        }
+
+        /** Ids matching the year, genre and director filters by bitmap intersection, or null when none is used **/
+        private Roaring64Bitmap candidates() {
+            Roaring64Bitmap candidates = null;
+            if (byYear) {
+                candidates = intersect(candidates, yearIndex.get(year));
+            }
+            if (genreMask != null) {
+                List<Roaring64Bitmap> genres = new ArrayList<>();
+                for (short genreId : filter.genreIds()) {
+                    genres.add(genreId < genreIndex.length ? genreIndex[genreId] : null);
+                }
+                candidates = intersect(candidates, anyGenre ? union(genres) : intersection(genres));
+            }
+            if (directors != null && matchingDirectors <= MAX_DIRECTOR_BITMAPS) {
+                List<Roaring64Bitmap> matching = new ArrayList<>(matchingDirectors);
+                for (int code = 0; code < directors.length; code++) {
+                    if (directors[code]) {
+                        matching.add(directorIndex.get(code));
+                    }
+                }
+                candidates = intersect(candidates, union(matching));
+            }
+            return candidates;
+        }
+
+        boolean matches(int row) {
+            if (titleCode >= 0 && titleCodes[row] != titleCode) {
+                return false;
+            }
+            if (byYear && years[row] != year) {
+                return false;
+            }
+            if (directors != null && (directorCodes[row] == NO_DIRECTOR || !directors[directorCodes[row]])) {
+                return false;
+            }
+            return genreMask == null || matchesGenres(row);
+        }
+
+        private boolean matchesGenres(int row) {
+            for (int w = 0; w < genreMask.length; w++) {
+                long masked = genreWords[w][row] & genreMask[w];
+                if (anyGenre && masked != 0) {
+                    return true;
+                }
+                if (!anyGenre && masked != genreMask[w]) {
+                    return false;
+                }
+            }
+            return !anyGenre;
+        }
+    }
+
+    private void index(int row) {
+        long id = ids[row];
+        yearIndex.computeIfAbsent(years[row], year -> new Roaring64Bitmap()).addLong(id);
+        for (short genreId : genreIds(row)) {
+            if (genreId >= genreIndex.length) {
+                genreIndex = Arrays.copyOf(genreIndex, genreId + 1);
+            }
+            if (genreIndex[genreId] == null) {
+                genreIndex[genreId] = new Roaring64Bitmap();
+            }
+            genreIndex[genreId].addLong(id);
+        }
+        if (directorCodes[row] != NO_DIRECTOR) {
+            directorIndex.get(directorCodes[row]).addLong(id);
+        }
+    }
+
+    private void unindex(int row) {
+        long id = ids[row];
+        Roaring64Bitmap byYear = yearIndex.get(years[row]);
+        byYear.removeLong(id);
+        if (byYear.isEmpty()) {
+            yearIndex.remove(years[row]);
+        }
+        for (short genreId : genreIds(row)) {
+            genreIndex[genreId].removeLong(id);
+        }
+        if (directorCodes[row] != NO_DIRECTOR) {
+            directorIndex.get(directorCodes[row]).removeLong(id);
+        }
+    }
+
+    /** Intersects in place; a missing bitmap matches nothing **/
+    private static Roaring64Bitmap intersect(Roaring64Bitmap candidates, Roaring64Bitmap bitmap) {
+        if (bitmap == null) {
+            return new Roaring64Bitmap();
+        }
+        if (candidates == null) {
+            return bitmap.clone();
+        }
+        candidates.and(bitmap);
+        return candidates;
+    }
+
+    private static Roaring64Bitmap intersection(List<Roaring64Bitmap> bitmaps) {
+        Roaring64Bitmap result = null;
+        for (Roaring64Bitmap bitmap : bitmaps) {
+            result = intersect(result, bitmap);
+        }
+        return result == null ? new Roaring64Bitmap() : result;
+    }
+
+    private static Roaring64Bitmap union(List<Roaring64Bitmap> bitmaps) {
+        Roaring64Bitmap result = new Roaring64Bitmap();
+        for (Roaring64Bitmap bitmap : bitmaps) {
+            if (bitmap != null) {
+                result.or(bitmap);
+            }
+        }
+        return result;
+    }
+
+    private Row toRow(int row) {
+        int directorCode = directorCodes[row];
+        return new Row(ids[row], titles.get(titleCodes[row]), years[row], genreIds(row),
+                directorCode == NO_DIRECTOR ? null : directorNames.get(directorCode));
+    }
+
+    private short[] genreIds(int row) {
+        short[] genreIds = new short[genreCount(row)];
+        int count = 0;
+        for (int w = 0; w < genreWords.length; w++) {
+            for (long bits = genreWords[w][row]; bits != 0; bits &= bits - 1) {
+                genreIds[count++] = (short) (w * 64 + Long.numberOfTrailingZeros(bits));
+            }
+        }
+        return genreIds;
+    }
+
+    private int genreCount(int row) {
+        int count = 0;
+        for (long[] words : genreWords) {
+            count += Long.bitCount(words[row]);
+        }
+        return count;
+    }
+
+    private int firstRowAfter(Long afterId) {
+        if (afterId == null) {
+            return 0;
+        }
+        int row = Arrays.binarySearch(ids, 0, size, afterId);
+        return row >= 0 ? row + 1 : -row - 1;
+    }
+
+    private int directorCode(long directorId, String name) {
+        Integer code = directorDictionary.get(directorId);
+        if (code == null) {
+            code = directorNames.size();
+            directorDictionary.put(directorId, code);
+            directorNames.add(name);
+            directorKeys.add(lowerCase(name));
+            directorIndex.add(new Roaring64Bitmap());
+        } else if (!Objects.equals(directorNames.get(code), name)) {
+            directorNames.set(code, name);
+            directorKeys.set(code, lowerCase(name));
+        }
+        return code;
+    }
+
+    private long[] genreColumn(int word) {
+        if (word >= genreWords.length) {
+            int words = genreWords.length;
+            genreWords = Arrays.copyOf(genreWords, word + 1);
+            for (int w = words; w <= word; w++) {
+                genreWords[w] = new long[ids.length];
+            }
+        }
+        return genreWords[word];
+    }
+
+    /** Opens a gap at the row; new movies usually have the largest id, so this is nearly always an append **/
+    private void insertRow(int row) {
+        if (size == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            years = Arrays.copyOf(years, capacity);
+            titleCodes = Arrays.copyOf(titleCodes, capacity);
+            directorCodes = Arrays.copyOf(directorCodes, capacity);
+            for (int w = 0; w < genreWords.length; w++) {
+                genreWords[w] = Arrays.copyOf(genreWords[w], capacity);
+            }
+        }
+        int moved = size - row;
+        if (moved > 0) {
+            System.arraycopy(ids, row, ids, row + 1, moved);
+            System.arraycopy(years, row, years, row + 1, moved);
+            System.arraycopy(titleCodes, row, titleCodes, row + 1, moved);
+            System.arraycopy(directorCodes, row, directorCodes, row + 1, moved);
+            for (long[] words : genreWords) {
+                System.arraycopy(words, row, words, row + 1, moved);
+            }
+        }
+        size++;
+    }
+
+    private void removeRow(int row) {
+        int moved = size - row - 1;
+        System.arraycopy(ids, row + 1, ids, row, moved);
+        System.arraycopy(years, row + 1, years, row, moved);
+        System.arraycopy(titleCodes, row + 1, titleCodes, row, moved);
+        System.arraycopy(directorCodes, row + 1, directorCodes, row, moved);
+        for (long[] words : genreWords) {
+            System.arraycopy(words, row + 1, words, row, moved);
+        }
+        size--;
+    }
+
+    private static boolean isZero(long[] words) {
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Directors are matched on lower(name), like the database filter **/
+    private static String lowerCase(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+}
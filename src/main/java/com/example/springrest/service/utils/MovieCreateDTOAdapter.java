@@ -0,0 +1,151 @@
+package com.example.springrest.service.utils;
+
+import com.example.springrest.dto.MovieCreateDTO;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads upload records straight off the token stream instead of building a {@code JsonElement} tree per field.
+ * A field of the wrong type is skipped and left {@code null}, so the record fails validation instead of
+ * aborting the file; a year is accepted as an integral number or a string of digits. Genre and director
+ * names repeat across records and are interned, so the chunks of a file keep one copy of each. The pool lives
+ * as long as the adapter, so an adapter reads a single file on a single thread (see {@link MovieGson#create()}).
+ */
+public class MovieCreateDTOAdapter extends TypeAdapter<MovieCreateDTO> {
+    /** Bounds the interned names, so a file of unique directors cannot grow the pool without limit **/
+    private static final int MAX_INTERNED = 100_000;
+
+    private final Map<String, String> interned = new HashMap<>();
+
+    @Override
+    public MovieCreateDTO read(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+        String title = null;
+        Integer year = null;
+        Set<String> genre = null;
+        String director = null;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "title" -> title = readString(reader);
+                case "year" -> year = readYear(reader);
+                case "genre" -> genre = readGenres(reader);
+                case "director" -> director = intern(readString(reader));
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new MovieCreateDTO(title, year, genre, director);
+    }
+
+    @Override
+    public void write(JsonWriter writer, MovieCreateDTO movie) throws IOException {
+        if (movie == null) {
+            writer.nullValue();
+            return;
+        }
+        writer.beginObject()
+                .name("title").value(movie.title())
+                .name("year").value(movie.year())
+                .name("genre");
+        if (movie.genre() == null) {
+            writer.nullValue();
+        } else {
+            writer.beginArray();
+            for (String genre : movie.genre()) {
+                writer.value(genre);
+            }
+            writer.endArray();
+        }
+        writer.name("director").value(movie.director())
+                .endObject();
+    }
+
+    private static String readString(JsonReader reader) throws IOException {
+        return switch (reader.peek()) {
+            case STRING, NUMBER -> reader.nextString();
+            case BOOLEAN -> String.valueOf(reader.nextBoolean());
+            default -> {
+                reader.skipValue();
+                yield null;
+            }
+        };
+    }
+
+    /** Integer literals are read without allocating; anything else that is not a whole number yields null **/
+    private static Integer readYear(JsonReader reader) throws IOException {
+        return switch (reader.peek()) {
+            case NUMBER -> {
+                double year = reader.nextDouble();
+                yield year == Math.rint(year) && Math.abs(year) <= Integer.MAX_VALUE ? (int) year : null;
+            }
+            case STRING -> parseYear(reader.nextString());
+            default -> {
+                reader.skipValue();
+                yield null;
+            }
+        };
+    }
+
+    private static Integer parseYear(String value) {
+        if (value.isEmpty() || value.length() > 9) {
+            return null;
+        }
+        int year = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            year = year * 10 + (c - '0');
+        }
+        return year;
+    }
+
+    private Set<String> readGenres(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        Set<String> genres = new HashSet<>(4);
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String genre = intern(readString(reader));
+            if (genre != null) {
+                genres.add(genre);
+            }
+        }
+        reader.endArray();
+        return genres;
+    }
+
+    private String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = interned.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (interned.size() < MAX_INTERNED) {
+            interned.put(value, value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.springrest.service.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/** Opaque continuation token for keyset pagination. Movies are listed by id, so the token carries the last seen id **/
+public class MovieCursor {
+    private static final String PREFIX = "v1:";
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Returns the last seen id, or null for the first page **/
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return Long.parseLong(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
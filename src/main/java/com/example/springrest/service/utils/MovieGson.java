@@ -0,0 +1,16 @@
+package com.example.springrest.service.utils;
+
+import com.example.springrest.dto.MovieCreateDTO;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/** Gson configured for movie files **/
+public class MovieGson {
+
+    /** A Gson for reading one file; its adapter interns the names of that file only, so create one per reader **/
+    public static Gson create() {
+        return new GsonBuilder()
+                .registerTypeAdapter(MovieCreateDTO.class, new MovieCreateDTOAdapter())
+                .create();
+    }
+}
@@ -1,22 +1,120 @@
 package com.example.springrest.service.utils;
 
+import com.example.springrest.dto.GenreMatch;
+import com.example.springrest.model.Director;
 import com.example.springrest.model.Movie;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.util.Locale;
+
 public class MovieSpecifications {
+    private static final char ESCAPE = '\\';
+    private static final int MIN_FUZZY_LENGTH = 3;
+
     public static Specification<Movie> hasYear(int year) {
         return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("year"), year);
     }
 
-    public static Specification<Movie> hasGenre(String genre) {
-        return (root, query, criteriaBuilder) -> criteriaBuilder.isMember(genre, root.get("genre"));
+    /** Movies with all of the genres (ALL, the default) or with any of them (ANY), as one predicate on genre_ids **/
+    public static Specification<Movie> hasGenre(short[] genreIds, GenreMatch match) {
+        return (root, query, criteriaBuilder) -> {
+            Expression<?>[] arguments = new Expression<?>[genreIds.length + 1];
+            arguments[0] = root.get("genreIds");
+            for (int i = 0; i < genreIds.length; i++) {
+                arguments[i + 1] = criteriaBuilder.literal(genreIds[i]);
+            }
+            String function = match == GenreMatch.ANY ? "genres_overlap" : "genres_contain_all";
+            return criteriaBuilder.isTrue(criteriaBuilder.function(function, Boolean.class, arguments));
+        };
+    }
+
+    /** Matches no movie, for filters on a genre that does not exist **/
+    public static Specification<Movie> none() {
+        return (root, query, criteriaBuilder) -> criteriaBuilder.disjunction();
     }
 
     public static Specification<Movie> hasTitle(String title) {
         return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("title"), title);
     }
 
+    /**
+     * Case-insensitive containment on lower(name), which the trigram index on Postgres can serve. Shares the director
+     * join with the search and the summary projection, so combined filters join Director once.
+     */
     public static Specification<Movie> hasDirectorName(String directorName) {
-        return (root, query, criteriaBuilder) -> criteriaBuilder.like(root.get("director").get("name"), "%" + directorName + "%");
+        return (root, query, criteriaBuilder) -> criteriaBuilder.like(
+                criteriaBuilder.lower(directorJoin(root).get("name")), containsPattern(normalize(directorName)), ESCAPE);
+    }
+
+    /**
+     * Prefix, infix and typo-tolerant match on the title or the director name. Matches are ordered by relevance
+     * ahead of any ordering the caller adds. Queries shorter than three characters yield too few trigrams to be
+     * selective, so they only match word prefixes.
+     */
+    public static Specification<Movie> matchesSearch(String search) {
+        String text = normalize(search);
+        return (root, query, criteriaBuilder) -> {
+            Expression<String> title = root.get("title");
+            Expression<String> director = directorJoin(root).get("name");
+
+            Predicate predicate = text.length() < MIN_FUZZY_LENGTH
+                    ? criteriaBuilder.or(startsWithWord(criteriaBuilder, title, text),
+                            startsWithWord(criteriaBuilder, director, text))
+                    : criteriaBuilder.or(matches(criteriaBuilder, title, text), matches(criteriaBuilder, director, text));
+
+            if (!Long.class.equals(query.getResultType())) {
+                Expression<Double> score = criteriaBuilder.function("greatest", Double.class,
+                        score(criteriaBuilder, title, text), score(criteriaBuilder, director, text));
+                query.orderBy(criteriaBuilder.desc(score));
+            }
+            return predicate;
+        };
+    }
+
+    /** Reuses the director join of the surrounding query, if it has one **/
+    @SuppressWarnings("unchecked")
+    private static Join<Movie, Director> directorJoin(Root<Movie> root) {
+        return root.getJoins().stream()
+                .filter(join -> join.getAttribute().getName().equals("director"))
+                .map(join -> (Join<Movie, Director>) join)
+                .findFirst()
+                .orElseGet(() -> root.join("director", JoinType.LEFT));
+    }
+
+    private static Predicate matches(CriteriaBuilder criteriaBuilder, Expression<String> column, String text) {
+        return criteriaBuilder.or(
+                criteriaBuilder.like(criteriaBuilder.lower(column), containsPattern(text), ESCAPE),
+                criteriaBuilder.isTrue(criteriaBuilder.function("search_similar", Boolean.class, column,
+                        criteriaBuilder.literal(text))));
+    }
+
+    private static Predicate startsWithWord(CriteriaBuilder criteriaBuilder, Expression<String> column, String text) {
+        String escaped = escape(text);
+        return criteriaBuilder.or(
+                criteriaBuilder.like(criteriaBuilder.lower(column), escaped + "%", ESCAPE),
+                criteriaBuilder.like(criteriaBuilder.lower(column), "% " + escaped + "%", ESCAPE));
+    }
+
+    private static Expression<Double> score(CriteriaBuilder criteriaBuilder, Expression<String> column, String text) {
+        return criteriaBuilder.coalesce(
+                criteriaBuilder.function("search_score", Double.class, column, criteriaBuilder.literal(text)), 0.0);
+    }
+
+    private static String normalize(String text) {
+        return text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String containsPattern(String text) {
+        return "%" + escape(text) + "%";
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
 }
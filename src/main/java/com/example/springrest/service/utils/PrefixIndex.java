@@ -0,0 +1,275 @@
+package com.example.springrest.service.utils;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory radix trie for autocomplete. Every text is normalized (accents dropped, lower case, punctuation
+ * turned into spaces) and inserted from its start and from each later word, so "mat" finds both "Matrix" and
+ * "The Matrix". Keys with a common prefix share the nodes of that prefix, and a node is only split where two
+ * keys diverge, so each distinct prefix is stored once. A lookup walks down to the prefix and collects the
+ * subtree in order, stopping at the limit. Lookups share a read lock, changes take the write lock.
+ */
+public class PrefixIndex {
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final long[] NO_IDS = new long[0];
+
+    private final Node root = new Node("");
+    private final Map<Long, String> texts = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /** Adds the text or replaces the text previously stored for the id **/
+    public void put(Long id, String text) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            String previous = texts.put(id, text);
+            if (previous != null) {
+                keysOf(previous).forEach(key -> remove(root, key, 0, id));
+            }
+            keysOf(text).forEach(key -> insert(key, id));
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        Lock writeLock = lock.writeLock();
+        writeLock.lock();
+        try {
+            String previous = texts.remove(id);
+            if (previous != null) {
+                keysOf(previous).forEach(key -> remove(root, key, 0, id));
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /** Returns up to {@code limit} ids whose text has a word starting with the prefix, in alphabetical order of the match **/
+    public List<Long> find(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            Node node = root;
+            int position = 0;
+            while (position < normalized.length()) {
+                node = node.child(normalized.charAt(position));
+                if (node == null) {
+                    return List.of();
+                }
+                int common = commonPrefix(node.label, normalized, position);
+                if (position + common < normalized.length() && common < node.label.length()) {
+                    return List.of();
+                }
+                position += common;
+            }
+            Set<Long> ids = new LinkedHashSet<>();
+            collect(node, ids, limit);
+            return new ArrayList<>(ids);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    /** Returns the original text stored for the id, or null if it has been removed meanwhile **/
+    public String text(Long id) {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return texts.get(id);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    public int size() {
+        Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            return texts.size();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void insert(String key, long id) {
+        Node node = root;
+        int position = 0;
+        while (position < key.length()) {
+            int index = node.indexOf(key.charAt(position));
+            if (index < 0) {
+                Node leaf = new Node(key.substring(position));
+                leaf.ids = new long[]{id};
+                node.insertChild(-index - 1, leaf);
+                return;
+            }
+            Node child = node.children[index];
+            int common = commonPrefix(child.label, key, position);
+            if (common < child.label.length()) {
+                // The key leaves the edge halfway, so the shared part becomes a node of its own
+                Node split = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                split.children = new Node[]{child};
+                node.children[index] = split;
+                child = split;
+            }
+            node = child;
+            position += common;
+        }
+        node.addId(id);
+    }
+
+    /** Removes the id from the key below the node and prunes the nodes left empty; returns whether the node is unused **/
+    private static boolean remove(Node node, String key, int position, long id) {
+        if (position == key.length()) {
+            node.removeId(id);
+        } else {
+            int index = node.indexOf(key.charAt(position));
+            if (index < 0) {
+                return false;
+            }
+            Node child = node.children[index];
+            if (!key.startsWith(child.label, position)) {
+                return false;
+            }
+            if (remove(child, key, position + child.label.length(), id)) {
+                node.removeChild(index);
+            } else if (child.ids.length == 0 && child.children.length == 1) {
+                // Nothing ends at the child any more, so it is folded into its only child
+                Node grandchild = child.children[0];
+                grandchild.label = child.label + grandchild.label;
+                node.children[index] = grandchild;
+            }
+        }
+        return node.ids.length == 0 && node.children.length == 0;
+    }
+
+    /** Adds the ids of the subtree, shorter keys first, then the children in order **/
+    private static boolean collect(Node node, Set<Long> ids, int limit) {
+        for (long id : node.ids) {
+            if (ids.size() == limit) {
+                return false;
+            }
+            ids.add(id);
+        }
+        for (Node child : node.children) {
+            if (!collect(child, ids, limit)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int commonPrefix(String label, String key, int position) {
+        int length = Math.min(label.length(), key.length() - position);
+        int common = 0;
+        while (common < length && label.charAt(common) == key.charAt(position + common)) {
+            common++;
+        }
+        return common;
+    }
+
+    private static Set<String> keysOf(String text) {
+        String normalized = normalize(text);
+        Set<String> result = new LinkedHashSet<>();
+        result.add(normalized);
+        for (int i = 1; i < normalized.length(); i++) {
+            if (normalized.charAt(i - 1) == ' ') {
+                result.add(normalized.substring(i));
+            }
+        }
+        return result;
+    }
+
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT)
+                .replaceAll("[^\\p{L}\\p{N}]+", " ")
+                .trim();
+    }
+
+    /** An edge label with the node below it; children are sorted by their first character, ids ascending **/
+    private static final class Node {
+        private String label;
+        private Node[] children = NO_CHILDREN;
+        private long[] ids = NO_IDS;
+
+        Node(String label) {
+            this.label = label;
+        }
+
+        Node child(char first) {
+            int index = indexOf(first);
+            return index < 0 ? null : children[index];
+        }
+
+        /** Binary search by first character, returning {@code -(insertion point) - 1} when missing **/
+        int indexOf(char first) {
+            int low = 0;
+            int high = children.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                char current = children[middle].label.charAt(0);
+                if (current < first) {
+                    low = middle + 1;
+                } else if (current > first) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -low - 1;
+        }
+
+        void insertChild(int index, Node child) {
+            Node[] grown = new Node[children.length + 1];
+            System.arraycopy(children, 0, grown, 0, index);
+            grown[index] = child;
+            System.arraycopy(children, index, grown, index + 1, children.length - index);
+            children = grown;
+        }
+
+        void removeChild(int index) {
+            Node[] shrunk = new Node[children.length - 1];
+            System.arraycopy(children, 0, shrunk, 0, index);
+            System.arraycopy(children, index + 1, shrunk, index, children.length - index - 1);
+            children = shrunk;
+        }
+
+        void addId(long id) {
+            int index = Arrays.binarySearch(ids, id);
+            if (index >= 0) {
+                return;
+            }
+            int insertion = -index - 1;
+            long[] grown = new long[ids.length + 1];
+            System.arraycopy(ids, 0, grown, 0, insertion);
+            grown[insertion] = id;
+            System.arraycopy(ids, insertion, grown, insertion + 1, ids.length - insertion);
+            ids = grown;
+        }
+
+        void removeId(long id) {
+            int index = Arrays.binarySearch(ids, id);
+            if (index < 0) {
+                return;
+            }
+            long[] shrunk = new long[ids.length - 1];
+            System.arraycopy(ids, 0, shrunk, 0, index);
+            System.arraycopy(ids, index + 1, shrunk, index, ids.length - index - 1);
+            ids = shrunk;
+        }
+    }
+}
@@ -1,19 +0,0 @@
-package com.example.springrest.service.utils;
-
-import com.google.gson.JsonDeserializationContext;
-import com.google.gson.JsonDeserializer;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonParseException;
-
-import java.lang.reflect.Type;
-
-public class YearAdapter implements JsonDeserializer<Integer> {
-    @Override
-    public Integer deserialize(JsonElement json, Type type, JsonDeserializationContext context) throws JsonParseException {
-        try {
-            return Integer.parseInt(json.getAsString());
-        } catch (NumberFormatException e) {
-            return null;
-        }
-    }
-}
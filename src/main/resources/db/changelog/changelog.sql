@@ -37,4 +37,124 @@ CREATE TABLE IF NOT EXISTS Movie_Genre
 CREATE INDEX IF NOT EXISTS idx_movie_title ON Movie (title);
 
 -- changeset sam:5
-CREATE INDEX IF NOT EXISTS idx_director_name ON Director (name);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_director_name ON Director (name);
+
+-- changeset sam:6
+CREATE SEQUENCE IF NOT EXISTS movie_seq START WITH 1 INCREMENT BY 50;
+
+-- changeset sam:7 dbms:postgresql
+SELECT setval('movie_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM Movie), false);
+
+
+-- changeset sam:8
+CREATE TABLE IF NOT EXISTS Import_Job
+(
+    id                 VARCHAR(36) PRIMARY KEY,
+    file_path          VARCHAR(1024) NOT NULL,
+    status             VARCHAR(16)   NOT NULL,
+    bytes_total        BIGINT        NOT NULL,
+    bytes_read         BIGINT        NOT NULL,
+    processed          BIGINT        NOT NULL,
+    imported           INT           NOT NULL,
+    already_exists     INT           NOT NULL,
+    failed             INT           NOT NULL,
+    processed_at_start BIGINT        NOT NULL,
+    bytes_at_start     BIGINT        NOT NULL,
+    error              VARCHAR(1024),
+    created_at         TIMESTAMP     NOT NULL,
+    started_at         TIMESTAMP,
+    updated_at         TIMESTAMP     NOT NULL
+);
+
+
+-- changeset sam:9 dbms:postgresql
+ALTER TABLE Movie ADD COLUMN IF NOT EXISTS genres VARCHAR(255)[] NOT NULL DEFAULT '{}';
+UPDATE Movie m SET genres = ARRAY(SELECT g.genre FROM Movie_Genre g WHERE g.movie_id = m.id AND g.genre IS NOT NULL);
+CREATE INDEX IF NOT EXISTS idx_movie_genres ON Movie USING GIN (genres);
+
+-- changeset sam:10 dbms:h2
+ALTER TABLE Movie ADD COLUMN IF NOT EXISTS genres VARCHAR(255) ARRAY;
+UPDATE Movie m SET genres = (SELECT ARRAY_AGG(g.genre) FROM Movie_Genre g WHERE g.movie_id = m.id);
+
+-- changeset sam:11
+CREATE INDEX IF NOT EXISTS idx_movie_genre_movie_id ON Movie_Genre (movie_id);
+
+-- changeset sam:12 dbms:postgresql
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_movie_title_trgm ON Movie USING GIN (lower(title) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_director_name_trgm ON Director USING GIN (lower(name) gin_trgm_ops);
+
+-- changeset sam:13
+UPDATE Movie SET director_id = (SELECT MIN(d.id) FROM Director d JOIN Director o ON o.name = d.name WHERE o.id = Movie.director_id)
+WHERE director_id IN (SELECT d.id FROM Director d WHERE EXISTS (SELECT 1 FROM Director o WHERE o.name = d.name AND o.id < d.id));
+DELETE FROM Director WHERE EXISTS (SELECT 1 FROM Director o WHERE o.name = Director.name AND o.id < Director.id);
+DROP INDEX IF EXISTS idx_director_name;
+ALTER TABLE Director ADD CONSTRAINT uq_director_name UNIQUE (name);
+
+-- changeset sam:14
+DELETE FROM Movie_Genre WHERE movie_id IN (SELECT m.id FROM Movie m WHERE EXISTS
+    (SELECT 1 FROM Movie o WHERE o.title = m.title AND o.director_id = m.director_id AND o.id < m.id));
+DELETE FROM Movie WHERE EXISTS
+    (SELECT 1 FROM Movie o WHERE o.title = Movie.title AND o.director_id = Movie.director_id AND o.id < Movie.id);
+DROP INDEX IF EXISTS idx_movie_title;
+ALTER TABLE Movie ADD CONSTRAINT uq_movie_title_director UNIQUE (title, director_id);
+
+-- changeset sam:15
+CREATE TABLE IF NOT EXISTS Genre_Stats
+(
+    genre  VARCHAR(255) PRIMARY KEY,
+    movies BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS Year_Stats
+(
+    pub_year INT PRIMARY KEY,
+    movies   BIGINT NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS Director_Stats
+(
+    director_id BIGINT PRIMARY KEY,
+    movies      BIGINT NOT NULL
+);
+
+INSERT INTO Genre_Stats (genre, movies) SELECT genre, COUNT(*) FROM Movie_Genre WHERE genre IS NOT NULL GROUP BY genre;
+INSERT INTO Year_Stats (pub_year, movies) SELECT pub_year, COUNT(*) FROM Movie GROUP BY pub_year;
+INSERT INTO Director_Stats (director_id, movies) SELECT director_id, COUNT(*) FROM Movie WHERE director_id IS NOT NULL GROUP BY director_id;
+
+-- changeset sam:16
+CREATE TABLE IF NOT EXISTS Genre
+(
+    id   SMALLINT PRIMARY KEY,
+    name VARCHAR(255) NOT NULL,
+    CONSTRAINT uq_genre_name UNIQUE (name)
+);
+
+INSERT INTO Genre (id, name)
+SELECT ROW_NUMBER() OVER (ORDER BY genre), genre FROM (SELECT DISTINCT genre FROM Movie_Genre WHERE genre IS NOT NULL) g;
+
+-- changeset sam:17 dbms:postgresql
+ALTER TABLE Movie ADD COLUMN IF NOT EXISTS genre_ids SMALLINT[] NOT NULL DEFAULT '{}';
+UPDATE Movie m SET genre_ids = ARRAY(SELECT g.id FROM Movie_Genre mg JOIN Genre g ON g.name = mg.genre
+                                     WHERE mg.movie_id = m.id ORDER BY g.id);
+CREATE INDEX IF NOT EXISTS idx_movie_genre_ids ON Movie USING GIN (genre_ids);
+DROP INDEX IF EXISTS idx_movie_genres;
+ALTER TABLE Movie DROP COLUMN IF EXISTS genres;
+
+-- changeset sam:18 dbms:h2
+ALTER TABLE Movie ADD COLUMN IF NOT EXISTS genre_ids SMALLINT ARRAY DEFAULT ARRAY[] NOT NULL;
+UPDATE Movie m SET genre_ids = COALESCE((SELECT ARRAY_AGG(g.id ORDER BY g.id) FROM Movie_Genre mg
+                                         JOIN Genre g ON g.name = mg.genre WHERE mg.movie_id = m.id), ARRAY[]);
+ALTER TABLE Movie DROP COLUMN IF EXISTS genres;
+
+-- changeset sam:19
+DROP TABLE Genre_Stats;
+CREATE TABLE Genre_Stats
+(
+    genre_id SMALLINT PRIMARY KEY,
+    movies   BIGINT NOT NULL
+);
+
+INSERT INTO Genre_Stats (genre_id, movies)
+SELECT g.id, COUNT(*) FROM Movie_Genre mg JOIN Genre g ON g.name = mg.genre GROUP BY g.id;
+DROP TABLE Movie_Genre;
@@ -0,0 +1,52 @@
+package com.example.springrest;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/** Holds its reader at the first read until released, to keep an upload in progress while a test runs another **/
+class BlockingInputStream extends FilterInputStream {
+    private final CountDownLatch reading = new CountDownLatch(1);
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    BlockingInputStream(InputStream in) {
+        super(in);
+    }
+
+    /** Waits until the reader has reached the first read **/
+    void awaitReading() throws InterruptedException {
+        if (!reading.await(10, TimeUnit.SECONDS)) {
+            throw new AssertionError("The upload did not start reading");
+        }
+    }
+
+    void release() {
+        released.countDown();
+    }
+
+    @Override
+    public int read() throws IOException {
+        block();
+        return super.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        block();
+        return super.read(b, off, len);
+    }
+
+    private void block() throws IOException {
+        reading.countDown();
+        try {
+            if (!released.await(10, TimeUnit.SECONDS)) {
+                throw new IOException("The test did not release the upload");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.springrest;
+
+import com.example.springrest.config.ConnectionLimitingDataSource;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConnectionLimitingDataSourceTest {
+
+    @Test
+    public void testGetConnection_WaitsForReleasedConnection() throws Exception {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:limited;DB_CLOSE_DELAY=-1");
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(h2, 1, Duration.ofMillis(100));
+
+        Connection first = dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        first.close();
+        first.close();
+        try (Connection second = dataSource.getConnection()) {
+            assertTrue(second.isValid(1));
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+        }
+        dataSource.getConnection().close();
+    }
+}
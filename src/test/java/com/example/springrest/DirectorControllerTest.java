@@ -1,5 +1,8 @@
 package com.example.springrest;
 
+import com.example.springrest.cache.EntityChangedEvent;
+import com.example.springrest.cache.InvalidationBus;
+import com.example.springrest.dto.SuggestionDTO;
 import com.example.springrest.model.Director;
 import com.example.springrest.repository.DirectorRepository;
 import com.example.springrest.service.DirectorService;
@@ -15,6 +18,8 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -37,11 +42,26 @@ public class DirectorControllerTest {
     private DirectorRepository directorRepository;
     @Autowired
     private ObjectMapper objectMapper;
+    @Autowired
+    private InvalidationBus invalidationBus;
 
 
     @BeforeEach
     public void beforeEach() {
         directorRepository.deleteAll();
+        // The tests write through the repositories, so drop everything derived from earlier data
+        Arrays.stream(EntityChangedEvent.EntityType.values())
+                .forEach(type -> invalidationBus.publish(new EntityChangedEvent(type, List.of())));
+    }
+
+    private List<String> suggestDirectorNames(String query) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/api/director/_suggest").param("q", query))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8),
+                        new TypeReference<List<SuggestionDTO>>() {
+                        })
+                .stream().map(SuggestionDTO::text).toList();
     }
 
     @Test
@@ -118,6 +138,27 @@ public class DirectorControllerTest {
         assertTrue(directorsFromResponse.containsAll(directors));
     }
 
+    @Test
+    public void testSuggestDirectors() throws Exception {
+        mockMvc.perform(post("/api/director")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Steven Spielberg\"}"))
+                .andExpect(status().isCreated());
+        assertEquals(List.of("Steven Spielberg"), suggestDirectorNames("spiel"));
+
+        Long id = directorRepository.findAll().get(0).getId();
+        mockMvc.perform(put("/api/director/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Stanley Kubrick\"}"))
+                .andExpect(status().isOk());
+        assertEquals(List.of(), suggestDirectorNames("spiel"));
+        assertEquals(List.of("Stanley Kubrick"), suggestDirectorNames("st"));
+
+        mockMvc.perform(delete("/api/director/" + id))
+                .andExpect(status().isOk());
+        assertEquals(List.of(), suggestDirectorNames("st"));
+    }
+
     @Test
     public void testEditDirector_Success() throws Exception {
         String name = "Test1";
@@ -0,0 +1,137 @@
+package com.example.springrest;
+
+import com.example.springrest.cache.EntityChangedEvent;
+import com.example.springrest.cache.InvalidationBus;
+import com.example.springrest.dto.MovieInfoDTO;
+import com.example.springrest.dto.MovieResponseListDTO;
+import com.example.springrest.repository.DirectorRepository;
+import com.example.springrest.repository.MovieRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.MOCK,
+        classes = SpringRestApplication.class,
+        properties = "movie.catalog.enabled=true"
+)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class MovieCatalogTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private DirectorRepository directorRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @BeforeEach
+    public void beforeEach() {
+        movieRepository.deleteAll();
+        directorRepository.deleteAll();
+        Arrays.stream(EntityChangedEvent.EntityType.values())
+                .forEach(type -> invalidationBus.publish(new EntityChangedEvent(type, List.of())));
+    }
+
+    @Test
+    protected void testFindMoviesByQuery_AnsweredFromMemory() throws Exception {
+        addMovie("Alien", 1979, "[\"Horror\", \"Sci-Fi\"]", "Ridley Scott");
+        addMovie("Blade Runner", 1982, "[\"Sci-Fi\"]", "Ridley Scott");
+        addMovie("The Thing", 1982, "[\"Horror\"]", "John Carpenter");
+        addMovie("Starman", 1984, "[\"Romance\", \"Sci-Fi\"]", "John Carpenter");
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        MovieResponseListDTO page = list("""
+                {"genre": ["Horror", "Sci-Fi"], "genreMatch": "ANY", "director": "CARP", "page": 1, "size": 1}
+                """);
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(List.of(new MovieInfoDTO("The Thing", 1982, "[Horror]", "John Carpenter")), page.list());
+        assertEquals(2, page.totalPages());
+
+        assertEquals(List.of("Alien"), titles(list("""
+                {"genre": ["Sci-Fi", "Horror"], "page": 1, "size": 10}
+                """)));
+        assertEquals(List.of("Blade Runner", "The Thing"), titles(list("""
+                {"year": 1982, "page": 1, "size": 10}
+                """)));
+        assertEquals(List.of(), titles(list("""
+                {"genre": ["Horror", "Western"], "page": 1, "size": 10}
+                """)));
+        assertEquals(List.of("Starman"), titles(list("""
+                {"title": "Starman", "cursor": "", "size": 10}
+                """)));
+    }
+
+    @Test
+    protected void testFindMoviesByQuery_FollowsWrites() throws Exception {
+        long id = addMovie("Alien", 1979, "[\"Horror\"]", "Ridley Scott");
+        addMovie("Heat", 1995, "[\"Crime\"]", "Michael Mann");
+
+        mockMvc.perform(put("/api/movie/{id}", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"genre": ["Crime"], "director": "Michael Mann"}
+                                """))
+                .andExpect(status().isOk());
+        assertEquals(List.of("Alien", "Heat"), titles(list("""
+                {"genre": ["Crime"], "director": "mann", "cursor": "", "size": 10}
+                """)));
+
+        mockMvc.perform(delete("/api/movie/{id}", id)).andExpect(status().isOk());
+        assertEquals(List.of("Heat"), titles(list("""
+                {"genre": ["Crime"], "cursor": "", "size": 10}
+                """)));
+    }
+
+    private long addMovie(String title, int year, String genres, String director) throws Exception {
+        String response = mockMvc.perform(post("/api/movie")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"title": "%s", "year": %d, "genre": %s, "director": "%s"}
+                                """.formatted(title, year, genres, director)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return Long.parseLong(response);
+    }
+
+    private MovieResponseListDTO list(String json) throws Exception {
+        String response = mockMvc.perform(post("/api/movie/_list")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, MovieResponseListDTO.class);
+    }
+
+    private static List<String> titles(MovieResponseListDTO page) {
+        return page.list().stream().map(MovieInfoDTO::title).toList();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.springrest;
+
+import com.example.springrest.dto.GenreMatch;
+import com.example.springrest.service.utils.MovieColumns;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MovieColumnsTest {
+
+    @Test
+    public void testFind_IndexesFollowUpdatesAndRemovals() {
+        MovieColumns columns = new MovieColumns();
+        for (long id = 1; id <= 10; id++) {
+            columns.put(id, "Movie " + id, 2000 + (int) (id % 2), new short[]{(short) (id % 3), 70}, id % 2, "Director " + id % 2);
+        }
+        MovieColumns.Filter odd2001 = new MovieColumns.Filter(null, 2001, new short[]{70}, GenreMatch.ALL, "director 1");
+
+        assertEquals(5, columns.count(odd2001));
+        assertEquals(List.of(5L, 7L), ids(columns.find(odd2001, null, 2, 2)));
+        assertEquals(List.of(9L), ids(columns.find(odd2001, 7L, 0, 2)));
+
+        columns.put(5, "Movie 5", 2000, new short[]{1}, 0L, "Director 0");
+        columns.remove(7);
+        assertEquals(List.of(1L, 3L, 9L), ids(columns.find(odd2001, null, 0, 10)));
+        assertEquals(3, columns.count(odd2001));
+
+        MovieColumns.Filter anyGenre = new MovieColumns.Filter(null, null, new short[]{1, 200}, GenreMatch.ANY, null);
+        assertEquals(List.of(1L, 4L, 5L, 10L), ids(columns.find(anyGenre, null, 0, 10)));
+        MovieColumns.Filter allGenres = new MovieColumns.Filter(null, null, new short[]{1, 200}, GenreMatch.ALL, null);
+        assertEquals(0, columns.count(allGenres));
+    }
+
+    @Test
+    public void testFind_TitleIsCheckedOnCandidates() {
+        MovieColumns columns = new MovieColumns();
+        columns.put(3, "Heat", 1995, new short[]{1}, 1L, "Michael Mann");
+        columns.put(1, "Heat", 1986, new short[]{1}, 2L, "Someone Else");
+        columns.put(2, "Thief", 1981, new short[]{1}, 1L, "Michael Mann");
+
+        MovieColumns.Filter heat = new MovieColumns.Filter("Heat", null, new short[]{1}, GenreMatch.ALL, null);
+        assertEquals(2, columns.count(heat));
+        assertEquals(List.of(3L), ids(columns.find(heat, null, 1, 10)));
+
+        columns.renameDirector(1L, "M. Mann");
+        MovieColumns.Filter director = new MovieColumns.Filter(null, null, null, null, "m. mann");
+        List<MovieColumns.Row> rows = columns.find(director, null, 0, 10);
+        assertEquals(List.of(2L, 3L), ids(rows));
+        assertEquals("M. Mann", rows.get(0).directorName());
+        assertArrayEquals(new short[]{1}, rows.get(0).genreIds());
+    }
+
+    private static List<Long> ids(List<MovieColumns.Row> rows) {
+        return rows.stream().map(MovieColumns.Row::id).toList();
+    }
+}
@@ -1,30 +1,77 @@
 package com.example.springrest;
 
+import com.example.springrest.cache.EntityChangedEvent;
+import com.example.springrest.cache.InvalidationBus;
+import com.example.springrest.dto.ImportJobDTO;
 import com.example.springrest.dto.MovieCreateDTO;
 import com.example.springrest.dto.MovieDetailedDTO;
 import com.example.springrest.dto.MovieInfoDTO;
 import com.example.springrest.dto.MovieResponseListDTO;
+import com.example.springrest.dto.MovieStatsDTO;
+import com.example.springrest.dto.MovieStatsGroupDTO;
+import com.example.springrest.dto.MovieUploadResponseDTO;
+import com.example.springrest.dto.SuggestionDTO;
 import com.example.springrest.model.Director;
+import com.example.springrest.model.ImportJob;
 import com.example.springrest.model.Movie;
 import com.example.springrest.repository.DirectorRepository;
+import com.example.springrest.repository.ImportJobRepository;
 import com.example.springrest.repository.MovieRepository;
+import com.example.springrest.service.GenreDictionary;
+import com.example.springrest.service.ImportJobService;
+import com.example.springrest.service.MovieImportService;
 import com.example.springrest.service.MovieService;
+import com.example.springrest.service.MovieStatsService;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.luben.zstd.ZstdInputStream;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityExistsException;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.equalTo;
@@ -37,6 +84,7 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
         classes = SpringRestApplication.class
 )
 @AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
 @ActiveProfiles("test")
 public class MovieControllerTest {
     @Autowired
@@ -51,12 +99,43 @@ public class MovieControllerTest {
     @Autowired
     private DirectorRepository directorRepository;
 
+    @Autowired
+    private ImportJobRepository importJobRepository;
+
+    @Autowired
+    private ImportJobService importJobService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @Autowired
+    private MovieStatsService movieStatsService;
+
+    @Autowired
+    private GenreDictionary genreDictionary;
+
+    @Autowired
+    private MovieImportService movieImportService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @BeforeEach
     public void beforeEach() {
         movieRepository.deleteAll();
+        directorRepository.deleteAll();
+        // The tests write through the repositories, so drop everything derived from earlier data
+        Arrays.stream(EntityChangedEvent.EntityType.values())
+                .forEach(type -> invalidationBus.publish(new EntityChangedEvent(type, List.of())));
     }
 
     @Test
@@ -138,6 +217,31 @@ public class MovieControllerTest {
         assertEquals(moviesCount, movieRepository.count());
     }
 
+    @Test
+    protected void testAddMovie_ConcurrentDuplicates() throws Exception {
+        MovieCreateDTO dto = new MovieCreateDTO("Concurrent", 2000, Set.of("Drama"), "Concurrent Director");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> {
+                try {
+                    movieService.addMovie(dto);
+                    return true;
+                } catch (EntityExistsException | DataIntegrityViolationException e) {
+                    return false;
+                }
+            }));
+        }
+        int created = 0;
+        for (Future<Boolean> result : results) {
+            created += result.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(1, created);
+        assertEquals(1, movieRepository.count());
+    }
+
     @Test
     protected void testGetMovieById_Success() throws Exception {
         Movie movie = createTestMovie();
@@ -154,17 +258,130 @@ public class MovieControllerTest {
 
         assertEquals(movie.getTitle(), dto.title());
         assertEquals(movie.getYear(), dto.year());
-        assertEquals(movie.getGenre(), dto.genre());
+        assertEquals(genreDictionary.names(movie.getGenreIds()), dto.genre());
         assertEquals(movie.getDirector(), dto.director());
         assertEquals(id, dto.id());
     }
 
+    @Test
+    protected void testGetMovieById_ServedFromCacheUntilChanged() throws Exception {
+        Movie movie = createTestMovie();
+        long id = movieRepository.save(movie).getId();
+        mockMvc.perform(get("/api/movie/" + id))
+                .andExpect(status().isOk());
+
+        long statements = countStatements(() -> mockMvc.perform(get("/api/movie/" + id))
+                .andExpect(status().isOk()));
+        assertEquals(0, statements);
+        mockMvc.perform(get("/actuator/metrics/cache.gets").param("tag", "cache:movies").param("tag", "result:hit"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(put("/api/movie/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"Cached title\"}"))
+                .andExpect(status().isOk());
+        assertEquals("Cached title", getMovie(id).title());
+
+        mockMvc.perform(put("/api/director/" + movie.getDirector().getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Renamed director\"}"))
+                .andExpect(status().isOk());
+        assertEquals("Renamed director", getMovie(id).director().getName());
+
+        mockMvc.perform(delete("/api/movie/" + id))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/movie/" + id))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    protected void testGetMovieById_EvictedByRemoteChange() throws Exception {
+        Movie movie = createTestMovie();
+        long id = movieRepository.save(movie).getId();
+        assertEquals(movie.getTitle(), getMovie(id).title());
+
+        // Another node writes the row directly and announces the change on the bus
+        movie.setTitle("Changed elsewhere");
+        movieRepository.save(movie);
+        assertNotEquals("Changed elsewhere", getMovie(id).title());
+
+        invalidationBus.publish(EntityChangedEvent.movies(List.of(id)));
+        assertEquals("Changed elsewhere", getMovie(id).title());
+    }
+
+    @Test
+    protected void testMetrics_ScrapedByStage() throws Exception {
+        upload(new MockMultipartFile("file", "movies.json", MediaType.APPLICATION_JSON_VALUE,
+                getClass().getResourceAsStream("/movies.json")), status().isCreated());
+        mockMvc.perform(post("/api/movie/_report")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"director\": \"James Cameron\"}"))
+                .andExpect(status().isOk());
+
+        String metrics = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(metrics)
+                .contains("http_server_requests_seconds_bucket")
+                .contains("movie_import_stage_seconds_count{stage=\"parse\"")
+                .contains("movie_import_stage_seconds_count{stage=\"insert\"")
+                .contains("movie_import_records_total{result=\"imported\"")
+                .contains("movie_report_stage_seconds_count{stage=\"serialize\"")
+                .contains("movie_query_rows_count{query=\"report\"")
+                .contains("hibernate_statements_per_request_statements_count{method=\"POST\",uri=\"/api/movie/_report\"")
+                .contains("spring_data_repository_invocations_seconds")
+                .contains("hikaricp_connections_acquire_seconds");
+    }
+
     @Test
     protected void testGetMovieById_NotFound() throws Exception {
         mockMvc.perform(get("/api/movie/-123"))
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    protected void testAddMovie_DirectorDictionaryFollowsChanges() throws Exception {
+        movieService.addMovie(new MovieCreateDTO("First", 2000, Set.of("Drama"), "Dictionary Director"));
+        Director director = directorRepository.findByName("Dictionary Director").orElseThrow();
+
+        mockMvc.perform(put("/api/director/" + director.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"Renamed Dictionary Director\"}"))
+                .andExpect(status().isOk());
+        movieService.addMovie(new MovieCreateDTO("Second", 2000, Set.of("Drama"), "Renamed Dictionary Director"));
+        assertEquals(director.getId(), movieRepository.findByTitleAndDirector_Name("Second",
+                "Renamed Dictionary Director").orElseThrow().getDirector().getId());
+        assertEquals(1, directorRepository.count());
+
+        mockMvc.perform(delete("/api/director/" + director.getId()))
+                .andExpect(status().isOk());
+        movieService.addMovie(new MovieCreateDTO("Third", 2000, Set.of("Drama"), "Renamed Dictionary Director"));
+        assertNotEquals(director.getId(), directorRepository.findByName("Renamed Dictionary Director")
+                .orElseThrow().getId());
+    }
+
+    @Test
+    protected void testEntityChanged_DeliveredLocallyOnlyAfterCommit() {
+        List<EntityChangedEvent> delivered = new CopyOnWriteArrayList<>();
+        invalidationBus.subscribe(event -> {
+            if (event.ids().contains(-1L) || event.ids().contains(-2L)) {
+                delivered.add(event);
+            }
+        });
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(EntityChangedEvent.movies(List.of(-1L)));
+            assertTrue(delivered.isEmpty());
+        });
+        assertEquals(List.of(EntityChangedEvent.movies(List.of(-1L))), delivered);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            eventPublisher.publishEvent(EntityChangedEvent.movies(List.of(-2L)));
+            status.setRollbackOnly();
+        });
+        assertEquals(1, delivered.size());
+    }
+
     @Test
     protected void testUpdateMovie_Success() throws Exception {
         String newTitle = "New title";
@@ -250,11 +467,11 @@ public class MovieControllerTest {
         Director director3 = new Director("Quentin Tarantino");
         directorRepository.saveAll(List.of(director1, director2, director3));
         int year = 2000;
-        Movie movie1 = new Movie("Title1", 1990, Set.of("Genre1"), director1);
-        Movie movie2 = new Movie("Title2", year, Set.of("Genre1", "Genre2"), director2);
-        Movie movie3 = new Movie("Title3", year, Set.of("Genre1", "Genre2", "Genre3"), director3);
-        Movie movie4 = new Movie("Title4", year, Set.of("Genre2", "Genre3"), director2);
-        Movie movie5 = new Movie("Title5", year, Set.of("Genre3"), director2);
+        Movie movie1 = new Movie("Title1", 1990, genres("Genre1"), director1);
+        Movie movie2 = new Movie("Title2", year, genres("Genre1", "Genre2"), director2);
+        Movie movie3 = new Movie("Title3", year, genres("Genre1", "Genre2", "Genre3"), director3);
+        Movie movie4 = new Movie("Title4", year, genres("Genre2", "Genre3"), director2);
+        Movie movie5 = new Movie("Title5", year, genres("Genre3"), director2);
         movieRepository.saveAll(List.of(movie1, movie2, movie3, movie4, movie5));
         String json = """
                 {
@@ -286,6 +503,182 @@ public class MovieControllerTest {
         assertEquals(movies.get(0).title(), "Title4");
     }
 
+    @Test
+    protected void testFindMoviesByQuery_Cursor() throws Exception {
+        Director director = new Director("Cursor Director");
+        directorRepository.save(director);
+        for (int i = 1; i <= 5; i++) {
+            movieRepository.save(new Movie("Cursor" + i, 2005, genres("Genre1"), director));
+        }
+        movieRepository.save(new Movie("Other year", 2006, genres("Genre1"), director));
+
+        List<String> titles = new ArrayList<>();
+        String cursor = "";
+        int requests = 0;
+        while (cursor != null) {
+            String json = """
+                    {
+                        "year": 2005,
+                        "size": 2,
+                        "cursor": "%s",
+                        "countTotal": %b
+                    }
+                    """.formatted(cursor, requests == 0);
+            MvcResult mvcResult = mockMvc.perform(post("/api/movie/_list")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(json))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            MovieResponseListDTO response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(),
+                    MovieResponseListDTO.class);
+            if (requests == 0) {
+                assertEquals(3, response.totalPages());
+            } else {
+                assertNull(response.totalPages());
+            }
+            response.list().forEach(movie -> titles.add(movie.title()));
+            cursor = response.nextCursor();
+            requests++;
+        }
+
+        assertEquals(3, requests);
+        assertEquals(List.of("Cursor1", "Cursor2", "Cursor3", "Cursor4", "Cursor5"), titles);
+    }
+
+    @Test
+    protected void testFindMoviesByQuery_InvalidCursor() throws Exception {
+        String json = """
+                {
+                    "year": 2005,
+                    "size": 2,
+                    "cursor": "not-a-cursor"
+                }
+                """;
+        mockMvc.perform(post("/api/movie/_list")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    protected void testFindMoviesByQuery_FixedStatementCount() throws Exception {
+        createMoviesWithDistinctDirectors(10, 2007);
+        String json = """
+                {
+                    "year": 2007,
+                    "page": 1,
+                    "size": 5
+                }
+                """;
+
+        long statements = countStatements(() -> mockMvc.perform(post("/api/movie/_list")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk()));
+
+        // page rows with directors and genre ids, total count
+        assertEquals(2, statements);
+    }
+
+    @Test
+    protected void testGenerateReport_SingleStatement() throws Exception {
+        createMoviesWithDistinctDirectors(10, 2008);
+        String json = """
+                {
+                    "year": 2008
+                }
+                """;
+
+        MvcResult[] mvcResult = new MvcResult[1];
+        long statements = countStatements(() -> mvcResult[0] = mockMvc.perform(post("/api/movie/_report")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andReturn());
+
+        assertEquals(1, statements);
+        String[] lines = mvcResult[0].getResponse().getContentAsString().split("\\n");
+        assertEquals(11, lines.length);
+        assertTrue(lines[1].contains("Genre1,Genre2"));
+    }
+
+    @Test
+    protected void testFindMoviesByQuery_GenreMatch() throws Exception {
+        Director director = directorRepository.save(new Director("Genre Director"));
+        movieRepository.saveAll(List.of(
+                new Movie("Drama only", 2010, genres("Drama"), director),
+                new Movie("Drama comedy", 2010, genres("Drama", "Comedy"), director),
+                new Movie("Comedy only", 2010, genres("Comedy"), director),
+                new Movie("Horror only", 2010, genres("Horror"), director)));
+
+        assertEquals(List.of("Drama comedy"), findTitlesByGenres("ALL"));
+        assertEquals(List.of("Drama only", "Drama comedy", "Comedy only"), findTitlesByGenres("ANY"));
+    }
+
+    @Test
+    protected void testFindMoviesByQuery_Search() throws Exception {
+        Director wachowski = directorRepository.save(new Director("Lana Wachowski"));
+        Director scott = directorRepository.save(new Director("Ridley Scott"));
+        movieRepository.saveAll(List.of(
+                new Movie("Animatrix", 2003, genres("Animation"), wachowski),
+                new Movie("The Matrix Reloaded", 2003, genres("Action"), wachowski),
+                new Movie("Matrix", 1999, genres("Action"), wachowski),
+                new Movie("Alien", 1979, genres("Horror"), scott)));
+
+        assertEquals(List.of("Matrix", "Animatrix", "The Matrix Reloaded"), findTitlesBySearch("Matrix"));
+        assertEquals(List.of("Matrix"), findTitlesBySearch("matrx"));
+        assertEquals(List.of("Alien"), findTitlesBySearch("ridley"));
+        assertEquals(List.of("Alien"), findTitlesBySearch("al"));
+
+        mockMvc.perform(post("/api/movie/_list")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"search\": \"matrix\", \"size\": 10, \"cursor\": \"\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    protected void testSuggestMovies_FollowsWrites() throws Exception {
+        String json = """
+                {
+                    "title": "%s",
+                    "year": 1999,
+                    "genre": ["Action"],
+                    "director": "Lana Wachowski"
+                }
+                """;
+        MvcResult mvcResult = mockMvc.perform(post("/api/movie")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json.formatted("The Matrix")))
+                .andExpect(status().isCreated())
+                .andReturn();
+        long id = Long.parseLong(mvcResult.getResponse().getContentAsString());
+        mockMvc.perform(post("/api/movie")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json.formatted("Mátrix Reloaded")))
+                .andExpect(status().isCreated());
+
+        assertEquals(List.of("The Matrix", "Mátrix Reloaded"), suggestMovieTitles("mat"));
+        assertEquals(List.of("The Matrix"), suggestMovieTitles("the"));
+
+        mockMvc.perform(put("/api/movie/" + id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"Speed Racer\"}"))
+                .andExpect(status().isOk());
+        assertEquals(List.of("Mátrix Reloaded"), suggestMovieTitles("matrix"));
+        assertEquals(List.of("Speed Racer"), suggestMovieTitles("spe"));
+
+        mockMvc.perform(delete("/api/movie/" + id))
+                .andExpect(status().isOk());
+        assertEquals(List.of(), suggestMovieTitles("speed"));
+
+        upload(new MockMultipartFile("file", "movies.json", MediaType.APPLICATION_JSON_VALUE,
+                getClass().getResourceAsStream("/movies.json")), status().isCreated());
+        assertEquals(List.of("The Avengers", "Avengers: Endgame", "Avengers: Infinity War"), suggestMovieTitles("aveng"));
+
+        mockMvc.perform(get("/api/movie/_suggest").param("q", "mat").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     protected void testFindMoviesByQuery_EmptyBody() throws Exception {
         mockMvc.perform(post("/api/movie/_list"))
@@ -312,12 +705,249 @@ public class MovieControllerTest {
                 .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_OCTET_STREAM));
     }
 
+    @Test
+    protected void testGenerateReport_StreamsAllRows() throws Exception {
+        Movie movie = createTestMovie();
+        movieRepository.save(movie);
+        movieRepository.save(new Movie("Second Title", movie.getYear(), genres("Genre3"), movie.getDirector()));
+        String json = """
+                {
+                    "year": %d,
+                    "director": "%s"
+                }
+                """.formatted(movie.getYear(), movie.getDirector().getName());
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/movie/_report")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        String[] lines = mvcResult.getResponse().getContentAsString().split("\\n");
+        assertEquals(3, lines.length);
+        assertEquals("Id,Title,Year,Genre,Director", lines[0]);
+        assertTrue(lines[1].contains(movie.getTitle()));
+        assertTrue(lines[2].endsWith("Second Title,2000,Genre3," + movie.getDirector().getName()));
+    }
+
+    @Test
+    protected void testGenerateReport_NotFound() throws Exception {
+        String json = """
+                {
+                    "year": 1901
+                }
+                """;
+
+        mockMvc.perform(post("/api/movie/_report")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     protected void testGenerateReport_EmptyBody() throws Exception {
         mockMvc.perform(post("/api/movie/_report"))
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    protected void testGenerateReport_QuotesCsvFields() throws Exception {
+        Movie movie = createTestMovie();
+        movieRepository.save(new Movie("Title, \"Quoted\"", movie.getYear(), genres("Genre3"), movie.getDirector()));
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/movie/_report")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept("text/csv")
+                        .content(reportQuery(movie)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("text/csv"))
+                .andReturn();
+
+        String[] lines = mvcResult.getResponse().getContentAsString().split("\\n");
+        assertTrue(lines[1].endsWith(",\"Title, \"\"Quoted\"\"\",2000,Genre3," + movie.getDirector().getName()));
+    }
+
+    @Test
+    protected void testGenerateReport_Ndjson() throws Exception {
+        Movie movie = movieRepository.save(createTestMovie());
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/movie/_report")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept("application/x-ndjson")
+                        .content(reportQuery(movie)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", equalTo("attachment; filename=movies.ndjson")))
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn();
+
+        String[] lines = mvcResult.getResponse().getContentAsString().split("\\n");
+        assertEquals(1, lines.length);
+        MovieSummaryLine line = objectMapper.readValue(lines[0], MovieSummaryLine.class);
+        assertEquals(movie.getId(), line.id());
+        assertEquals(movie.getTitle(), line.title());
+        assertEquals(genreDictionary.names(movie.getGenreIds()), line.genre());
+        assertEquals(movie.getDirector().getName(), line.director());
+    }
+
+    @Test
+    protected void testGenerateReport_Gzip() throws Exception {
+        Movie movie = movieRepository.save(createTestMovie());
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/movie/_report")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Accept-Encoding", "gzip, zstd;q=0")
+                        .content(reportQuery(movie)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("Vary", "Accept, Accept-Encoding"))
+                .andReturn();
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(mvcResult.getResponse().getContentAsByteArray()))) {
+            String csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(csv.startsWith("Id,Title,Year,Genre,Director\n"));
+            assertTrue(csv.contains(movie.getTitle()));
+        }
+    }
+
+    @Test
+    protected void testGenerateReport_ZstdPreferredOnTie() throws Exception {
+        Movie movie = movieRepository.save(createTestMovie());
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/movie/_report")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Accept-Encoding", "gzip, deflate, br, zstd")
+                        .content(reportQuery(movie)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "zstd"))
+                .andReturn();
+
+        try (InputStream in = new ZstdInputStream(new ByteArrayInputStream(mvcResult.getResponse().getContentAsByteArray()))) {
+            String csv = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(csv.startsWith("Id,Title,Year,Genre,Director\n"));
+            assertTrue(csv.contains(movie.getTitle()));
+        }
+    }
+
+    @Test
+    protected void testGenerateReport_Arrow() throws Exception {
+        Movie movie = movieRepository.save(createTestMovie());
+        movieRepository.save(new Movie("Second Title", movie.getYear(), genres("Genre3"), movie.getDirector()));
+
+        MvcResult mvcResult = mockMvc.perform(post("/api/movie/_report")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept("application/vnd.apache.arrow.stream")
+                        .content(reportQuery(movie)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", equalTo("attachment; filename=movies.arrows")))
+                .andReturn();
+
+        List<String> titles = new ArrayList<>();
+        try (RootAllocator allocator = new RootAllocator();
+             ArrowStreamReader reader = new ArrowStreamReader(
+                     new ByteArrayInputStream(mvcResult.getResponse().getContentAsByteArray()), allocator)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            while (reader.loadNextBatch()) {
+                VarCharVector title = (VarCharVector) root.getVector("title");
+                IntVector year = (IntVector) root.getVector("year");
+                for (int i = 0; i < root.getRowCount(); i++) {
+                    titles.add(title.getObject(i).toString());
+                    assertEquals(movie.getYear(), year.get(i));
+                }
+            }
+        }
+        assertThat(titles).containsExactlyInAnyOrder(movie.getTitle(), "Second Title");
+    }
+
+    @Test
+    protected void testGenerateReport_UnsupportedAcceptFallsBackToCsv() throws Exception {
+        Movie movie = movieRepository.save(createTestMovie());
+
+        for (MediaType accept : List.of(MediaType.APPLICATION_PDF, MediaType.APPLICATION_JSON)) {
+            MvcResult mvcResult = mockMvc.perform(post("/api/movie/_report")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(accept)
+                            .content(reportQuery(movie)))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_OCTET_STREAM))
+                    .andExpect(header().string("Content-Disposition", equalTo("attachment; filename=movies.csv")))
+                    .andReturn();
+            assertTrue(mvcResult.getResponse().getContentAsString().startsWith("Id,Title,Year,Genre,Director\n"));
+        }
+    }
+
+    @Test
+    protected void testGenerateReport_NotFoundIsNotEncoded() throws Exception {
+        mockMvc.perform(post("/api/movie/_report")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("Accept-Encoding", "gzip")
+                        .content("{\"year\": 1901}"))
+                .andExpect(status().isNotFound())
+                .andExpect(header().doesNotExist("Content-Encoding"));
+    }
+
+    private static String reportQuery(Movie movie) {
+        return """
+                {
+                    "year": %d,
+                    "director": "%s"
+                }
+                """.formatted(movie.getYear(), movie.getDirector().getName());
+    }
+
+    private record MovieSummaryLine(Long id, String title, int year, Set<String> genre, String director) {
+    }
+
+    @Test
+    protected void testGetStats_FollowsWrites() throws Exception {
+        movieStatsService.rebuild();
+        movieService.addMovie(new MovieCreateDTO("Stats1", 2001, Set.of("Drama", "Comedy"), "Stats Director"));
+        movieService.addMovie(new MovieCreateDTO("Stats2", 2001, Set.of("Drama"), "Stats Director"));
+        movieService.addMovie(new MovieCreateDTO("Stats3", 2002, Set.of("Drama"), "Other Stats Director"));
+        Long updated = movieRepository.findByTitleAndDirector_Name("Stats2", "Stats Director").orElseThrow().getId();
+        mockMvc.perform(put("/api/movie/" + updated)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"year\": 2003, \"genre\": [\"Horror\"]}"))
+                .andExpect(status().isOk());
+
+        assertEquals(new MovieStatsDTO("genre", 3, List.of(new MovieStatsGroupDTO("Drama", 2),
+                new MovieStatsGroupDTO("Comedy", 1), new MovieStatsGroupDTO("Horror", 1))), getStats("genre"));
+        assertEquals(List.of(new MovieStatsGroupDTO("2001", 1), new MovieStatsGroupDTO("2002", 1),
+                new MovieStatsGroupDTO("2003", 1)), getStats("year").groups());
+
+        Long removed = movieRepository.findByTitleAndDirector_Name("Stats3", "Other Stats Director").orElseThrow().getId();
+        mockMvc.perform(delete("/api/movie/" + removed))
+                .andExpect(status().isOk());
+        MockMultipartFile file = new MockMultipartFile("file", "movies.json",
+                MediaType.APPLICATION_JSON_VALUE, getClass().getResourceAsStream("/movies.json"));
+        upload(file, status().isCreated());
+        Long director = directorRepository.findByName("Stats Director").orElseThrow().getId();
+        mockMvc.perform(delete("/api/director/" + director))
+                .andExpect(status().isOk());
+
+        MovieStatsDTO byDirector = getStats("director");
+        assertEquals(movieRepository.count(), byDirector.total());
+        assertEquals(23, byDirector.groups().stream().mapToLong(MovieStatsGroupDTO::movies).sum());
+        assertTrue(byDirector.groups().stream().noneMatch(group -> group.key().contains("Stats")));
+        movieStatsService.rebuild();
+        assertEquals(byDirector, getStats("director"));
+
+        mockMvc.perform(get("/api/movie/_stats").param("by", "studio"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    protected void testGetStats_CountsOnlyCommittedWrites() throws Exception {
+        movieStatsService.rebuild();
+        transactionTemplate.executeWithoutResult(status -> {
+            movieService.addMovie(new MovieCreateDTO("Stats1", 2001, Set.of("Drama"), "Stats Director"));
+            status.setRollbackOnly();
+        });
+        assertEquals(new MovieStatsDTO("year", 0, List.of()), getStats("year"));
+
+        movieService.addMovie(new MovieCreateDTO("Stats2", 2002, Set.of("Drama"), "Stats Director"));
+        assertEquals(new MovieStatsDTO("year", 1, List.of(new MovieStatsGroupDTO("2002", 1))), getStats("year"));
+    }
+
     @Test
     protected void testUploadMovies_Success() throws Exception {
         InputStream inputStream = getClass().getResourceAsStream("/movies.json");
@@ -328,6 +958,208 @@ public class MovieControllerTest {
                 .andExpect(status().isCreated());
     }
 
+    @Test
+    protected void testUploadMovies_Counters() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "movies.json",
+                MediaType.APPLICATION_JSON_VALUE, getClass().getResourceAsStream("/movies.json"));
+
+        MovieUploadResponseDTO first = upload(file, status().isCreated());
+        assertEquals(new MovieUploadResponseDTO(23, 0, 7), first);
+        assertEquals(23, movieRepository.count());
+
+        MovieUploadResponseDTO second = upload(file, status().isOk());
+        assertEquals(new MovieUploadResponseDTO(0, 23, 7), second);
+        assertEquals(23, movieRepository.count());
+    }
+
+    @Test
+    protected void testUploadMovies_DuplicatesInFile() throws Exception {
+        String json = """
+                [
+                  {"title": "Duplicate", "year": 2001, "genre": ["Drama"], "director": "Upload Director"},
+                  {"title": "Duplicate", "year": 2002, "genre": ["Comedy"], "director": "Upload Director"},
+                  {"title": "Duplicate", "year": 2003, "genre": ["Drama"], "director": "Other Upload Director"}
+                ]
+                """;
+        MockMultipartFile file = new MockMultipartFile("file", "movies.json",
+                MediaType.APPLICATION_JSON_VALUE, json.getBytes());
+
+        MovieUploadResponseDTO result = upload(file, status().isCreated());
+
+        assertEquals(new MovieUploadResponseDTO(2, 1, 0), result);
+        Movie movie = movieRepository.findByTitleAndDirector_Name("Duplicate", "Upload Director").orElseThrow();
+        assertEquals(2001, movie.getYear());
+    }
+
+    @Test
+    protected void testUploadMovies_ParallelChunks() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"title\": \"Parallel ").append(i % 4000)
+                    .append("\", \"year\": 2001, \"genre\": [\"Drama\"], \"director\": \"Parallel Director ")
+                    .append(i % 40).append("\"}");
+        }
+        MockMultipartFile file = new MockMultipartFile("file", "movies.json",
+                MediaType.APPLICATION_JSON_VALUE, json.append("]").toString().getBytes());
+
+        MovieUploadResponseDTO result = upload(file, status().isCreated());
+
+        assertEquals(new MovieUploadResponseDTO(4000, 1000, 0), result);
+        assertEquals(4000, movieRepository.count());
+        assertEquals(40, directorRepository.count());
+    }
+
+    @Test
+    protected void testUploadMovies_FallsBackToSequentialWhenWorkersAreTaken() throws Exception {
+        BlockingInputStream blocked = new BlockingInputStream(getClass().getResourceAsStream("/movies.json"));
+        CompletableFuture<MovieUploadResponseDTO> first = CompletableFuture.supplyAsync(
+                () -> movieImportService.importMovies(blocked));
+        blocked.awaitReading();
+
+        // The first upload holds four of the five worker threads, so this one runs on the request thread
+        MockMultipartFile file = new MockMultipartFile("file", "movies.json",
+                MediaType.APPLICATION_JSON_VALUE, getClass().getResourceAsStream("/movies.json"));
+        assertEquals(new MovieUploadResponseDTO(23, 0, 7), upload(file, status().isCreated()));
+
+        blocked.release();
+        assertEquals(new MovieUploadResponseDTO(0, 23, 7), first.get(10, TimeUnit.SECONDS));
+        assertEquals(23, movieRepository.count());
+    }
+
+    @Test
+    protected void testUploadMovies_WrongFieldTypesFailRecords() throws Exception {
+        String json = """
+                [
+                  {"title": "Typed 1", "year": "2001", "genre": ["Drama"], "director": "Typed Director"},
+                  {"title": "Typed 2", "year": {"value": 2002}, "genre": ["Drama"], "director": "Typed Director"},
+                  {"title": "Typed 3", "year": 2003.5, "genre": "Drama", "director": "Typed Director"},
+                  {"title": ["Typed 4"], "year": 2004, "genre": ["Drama", null], "director": "Typed Director"},
+                  null,
+                  {"title": "Typed 5", "year": 2005, "genre": ["Drama", null], "director": "Typed Director", "rating": 7}
+                ]
+                """;
+        MockMultipartFile file = new MockMultipartFile("file", "movies.json",
+                MediaType.APPLICATION_JSON_VALUE, json.getBytes(StandardCharsets.UTF_8));
+
+        MovieUploadResponseDTO result = upload(file, status().isCreated());
+
+        assertEquals(new MovieUploadResponseDTO(2, 0, 4), result);
+    }
+
+    @Test
+    protected void testUploadMovies_NdjsonIsolatesBadLines() throws Exception {
+        String ndjson = """
+                {"title": "Ndjson 1", "year": 2001, "genre": ["Drama"], "director": "Ndjson Director"}
+                {"title": "Ndjson 2", "year": 2002, "genre": ["Comedy"],
+
+                {"title": "Ndjson 3", "year": "not a year", "genre": ["Drama"], "director": "Ndjson Director"}
+                {"title": "Ndjson 1", "year": 2001, "genre": ["Drama"], "director": "Ndjson Director"}
+                {"id": 7, "title": "Ndjson 4", "year": 2004, "genre": ["Drama"], "director": "Ndjson Director"}
+                """;
+        MockMultipartFile file = new MockMultipartFile("file", "movies.ndjson",
+                "application/x-ndjson", ndjson.getBytes(StandardCharsets.UTF_8));
+
+        MovieUploadResponseDTO result = upload(file, status().isCreated());
+
+        assertEquals(new MovieUploadResponseDTO(2, 1, 2), result);
+        assertEquals(2, movieRepository.count());
+    }
+
+    @Test
+    protected void testUploadMovies_GzippedCsv() throws Exception {
+        String csv = """
+                Id,Title,Year,Genre,Director
+                1,"Csv, ""Quoted\"\"",2001,"Drama,Comedy",Csv Director
+                2,Csv 2,unknown,Drama,Csv Director
+                3,Csv 3,2003
+                ,Csv 4,2004,Drama,Csv Director
+                """;
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (OutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(csv.getBytes(StandardCharsets.UTF_8));
+        }
+        MockMultipartFile file = new MockMultipartFile("file", "movies.csv.gz",
+                "application/gzip", gzipped.toByteArray());
+
+        MovieUploadResponseDTO result = upload(file, status().isCreated());
+
+        assertEquals(new MovieUploadResponseDTO(2, 0, 2), result);
+        Movie movie = movieRepository.findByTitleAndDirector_Name("Csv, \"Quoted\"", "Csv Director").orElseThrow();
+        MvcResult mvcResult = mockMvc.perform(get("/api/movie/" + movie.getId()))
+                .andExpect(status().isOk())
+                .andReturn();
+        MovieDetailedDTO dto = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), MovieDetailedDTO.class);
+        assertEquals(Set.of("Drama", "Comedy"), dto.genre());
+    }
+
+    @Test
+    protected void testUploadMovies_ReportRoundTrip() throws Exception {
+        Movie movie = movieRepository.save(createTestMovie());
+        movieRepository.save(new Movie("Title, \"Quoted\"", movie.getYear(), genres("Genre3"), movie.getDirector()));
+        for (String accept : List.of("text/csv", "application/x-ndjson")) {
+            byte[] report = mockMvc.perform(post("/api/movie/_report")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(accept)
+                            .header("Accept-Encoding", "zstd")
+                            .content(reportQuery(movie)))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsByteArray();
+
+            MovieUploadResponseDTO result = upload(new MockMultipartFile("file", "report", accept, report), status().isOk());
+
+            assertEquals(new MovieUploadResponseDTO(0, 2, 0), result);
+        }
+    }
+
+    @Test
+    protected void testUploadMovies_Async() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "movies.json",
+                MediaType.APPLICATION_JSON_VALUE, getClass().getResourceAsStream("/movies.json"));
+        MvcResult mvcResult = mockMvc.perform(multipart("/api/movie/upload")
+                        .file(file)
+                        .param("async", "true"))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        ImportJobDTO job = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), ImportJobDTO.class);
+
+        ImportJobDTO finished = awaitJob(job.jobId());
+
+        assertEquals("COMPLETED", finished.status());
+        assertEquals(30, finished.processed());
+        assertEquals(23, finished.imported());
+        assertEquals(7, finished.failed());
+        assertEquals(0L, finished.etaSeconds());
+    }
+
+    @Test
+    protected void testUploadMovies_ResumesUnfinishedJob() throws Exception {
+        Path spooled = Files.createTempFile("movies", ".json");
+        try (InputStream inputStream = getClass().getResourceAsStream("/movies.json")) {
+            Files.copy(inputStream, spooled, StandardCopyOption.REPLACE_EXISTING);
+        }
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), spooled.toString(), Files.size(spooled));
+        job.setStatus(ImportJob.Status.RUNNING);
+        job.setProcessed(10);
+        job.setImported(10);
+        importJobRepository.save(job);
+
+        importJobService.resumeUnfinishedJobs();
+        ImportJobDTO finished = awaitJob(job.getId());
+
+        assertEquals("COMPLETED", finished.status());
+        assertEquals(30, finished.processed());
+        assertEquals(10 + 13, finished.imported());
+        assertEquals(13, movieRepository.count());
+        assertFalse(Files.exists(spooled));
+    }
+
+    @Test
+    protected void testGetUploadJob_NotFound() throws Exception {
+        mockMvc.perform(get("/api/movie/upload/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     protected void testUploadMovies_NoFile() throws Exception {
         mockMvc.perform(multipart("/api/movie/upload"))
@@ -343,14 +1175,227 @@ public class MovieControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @Test
+    protected void testBulk_MixedOperations() throws Exception {
+        Director scott = directorRepository.save(new Director("Ridley Scott"));
+        Director mann = directorRepository.save(new Director("Michael Mann"));
+        Movie alien = movieRepository.save(new Movie("Alien", 1979, genres("Horror"), scott));
+        Movie heat = movieRepository.save(new Movie("Heat", 1995, genres("Crime"), mann));
+        Movie thief = movieRepository.save(new Movie("Thief", 1981, genres("Crime"), mann));
+        movieStatsService.rebuild();
+        String json = """
+                [
+                    {"action": "CREATE", "title": "Starman", "year": 1984, "genre": ["Sci-Fi"], "director": "John Carpenter"},
+                    {"action": "CREATE", "title": "Alien", "year": 1979, "genre": ["Horror"], "director": "Ridley Scott"},
+                    {"action": "UPDATE", "id": %d, "year": 1980},
+                    {"action": "DELETE", "id": %d},
+                    {"action": "UPDATE", "id": %d, "title": "Heat"},
+                    {"action": "DELETE", "id": 999999},
+                    {"action": "CREATE", "year": 2000, "genre": ["Drama"], "director": "Nobody"},
+                    {"action": "UPDATE", "id": %d, "genre": ["Drama"]}
+                ]
+                """.formatted(alien.getId(), heat.getId(), thief.getId(), alien.getId());
+
+        mockMvc.perform(post("/api/movie/_bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errors").value(true))
+                .andExpect(jsonPath("$.items[*].status").value(equalTo(List.of(201, 409, 200, 200, 200, 404, 400, 400))))
+                .andExpect(jsonPath("$.items[6].error").value("Title is required"));
+
+        assertEquals(3, movieRepository.count());
+        assertEquals(1980, movieRepository.findById(alien.getId()).orElseThrow().getYear());
+        assertEquals("Heat", movieRepository.findById(thief.getId()).orElseThrow().getTitle());
+        assertTrue(movieRepository.existsByTitleAndDirector_Name("Starman", "John Carpenter"));
+        assertEquals(3, getStats("year").total());
+    }
+
+    @Test
+    protected void testBulk_UpdateChainConflicts() throws Exception {
+        Director director = directorRepository.save(new Director("Chain Director"));
+        Movie first = movieRepository.save(new Movie("X", 2000, genres("Drama"), director));
+        Movie second = movieRepository.save(new Movie("Y", 2000, genres("Drama"), director));
+
+        bulkRename(List.of(second.getId(), first.getId()), List.of("Z", "Y"), List.of(200, 409));
+
+        assertEquals("X", movieRepository.findById(first.getId()).orElseThrow().getTitle());
+        assertEquals("Z", movieRepository.findById(second.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    protected void testBulk_UpdateSwapConflicts() throws Exception {
+        Director director = directorRepository.save(new Director("Swap Director"));
+        Movie first = movieRepository.save(new Movie("X", 2000, genres("Drama"), director));
+        Movie second = movieRepository.save(new Movie("Y", 2000, genres("Drama"), director));
+
+        bulkRename(List.of(first.getId(), second.getId()), List.of("Y", "X"), List.of(409, 409));
+
+        assertEquals("X", movieRepository.findById(first.getId()).orElseThrow().getTitle());
+        assertEquals("Y", movieRepository.findById(second.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    protected void testBulk_RejectedOwnerKeepsItsKey() throws Exception {
+        Director director = directorRepository.save(new Director("Owner Director"));
+        Movie first = movieRepository.save(new Movie("X", 2000, genres("Drama"), director));
+        Movie second = movieRepository.save(new Movie("Y", 2000, genres("Drama"), director));
+        movieRepository.save(new Movie("Z", 2000, genres("Drama"), director));
+
+        bulkRename(List.of(first.getId(), second.getId()), List.of("Y", "Z"), List.of(409, 409));
+
+        assertEquals("X", movieRepository.findById(first.getId()).orElseThrow().getTitle());
+        assertEquals("Y", movieRepository.findById(second.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    protected void testBulk_FixedStatementCount() throws Exception {
+        createMoviesWithDistinctDirectors(10, 2009);
+        List<Long> ids = movieRepository.findAll().stream().map(Movie::getId).toList();
+
+        long few = countStatements(() -> bulkUpdateYear(ids.subList(0, 2), 2010));
+        long many = countStatements(() -> bulkUpdateYear(ids.subList(2, 10), 2010));
+
+        // one load, one batch of updates and the stats counters, whatever the batch size
+        assertEquals(few, many);
+        assertEquals(10, getStats("year").groups().stream()
+                .filter(group -> group.key().equals("2010")).findFirst().orElseThrow().movies());
+    }
+
+
+    private MovieUploadResponseDTO upload(MockMultipartFile file, ResultMatcher expectedStatus) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(multipart("/api/movie/upload")
+                        .file(file))
+                .andExpect(expectedStatus)
+                .andReturn();
+        return objectMapper.readValue(mvcResult.getResponse().getContentAsString(), MovieUploadResponseDTO.class);
+    }
+
+    private MovieStatsDTO getStats(String by) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/api/movie/_stats").param("by", by))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(mvcResult.getResponse().getContentAsString(), MovieStatsDTO.class);
+    }
+
+    private ImportJobDTO awaitJob(String jobId) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            MvcResult mvcResult = mockMvc.perform(get("/api/movie/upload/" + jobId))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            ImportJobDTO job = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), ImportJobDTO.class);
+            if (!job.status().equals("QUEUED") && !job.status().equals("RUNNING")) {
+                return job;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Import job " + jobId + " did not finish");
+    }
+
+    private void createMoviesWithDistinctDirectors(int count, int year) {
+        for (int i = 0; i < count; i++) {
+            Director director = directorRepository.save(new Director("Director " + year + "-" + i));
+            movieRepository.save(new Movie("Movie " + i, year, genres("Genre1", "Genre2"), director));
+        }
+    }
+
+    private void bulkRename(List<Long> ids, List<String> titles, List<Integer> statuses) throws Exception {
+        List<String> operations = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            operations.add("{\"action\": \"UPDATE\", \"id\": %d, \"title\": \"%s\"}".formatted(ids.get(i), titles.get(i)));
+        }
+        mockMvc.perform(post("/api/movie/_bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + String.join(", ", operations) + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].status").value(equalTo(statuses)));
+    }
+
+    private void bulkUpdateYear(List<Long> ids, int year) throws Exception {
+        String json = ids.stream()
+                .map(id -> "{\"action\": \"UPDATE\", \"id\": %d, \"year\": %d}".formatted(id, year))
+                .collect(Collectors.joining(", ", "[", "]"));
+        mockMvc.perform(post("/api/movie/_bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errors").value(false));
+    }
+
+    private long countStatements(ThrowingRunnable request) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        request.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+
+    private List<String> findTitlesByGenres(String genreMatch) throws Exception {
+        String json = """
+                {
+                    "year": 2010,
+                    "genre": ["Drama", "Comedy"],
+                    "genreMatch": "%s",
+                    "page": 1,
+                    "size": 10
+                }
+                """.formatted(genreMatch);
+        MvcResult mvcResult = mockMvc.perform(post("/api/movie/_list")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(mvcResult.getResponse().getContentAsString(), MovieResponseListDTO.class)
+                .list().stream().map(MovieInfoDTO::title).toList();
+    }
+
+    private List<String> findTitlesBySearch(String search) throws Exception {
+        String json = """
+                {
+                    "search": "%s",
+                    "page": 1,
+                    "size": 10
+                }
+                """.formatted(search);
+        MvcResult mvcResult = mockMvc.perform(post("/api/movie/_list")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(json))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(mvcResult.getResponse().getContentAsString(), MovieResponseListDTO.class)
+                .list().stream().map(MovieInfoDTO::title).toList();
+    }
+
+    private List<String> suggestMovieTitles(String query) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/api/movie/_suggest").param("q", query))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(mvcResult.getResponse().getContentAsString(StandardCharsets.UTF_8),
+                        new TypeReference<List<SuggestionDTO>>() {
+                        })
+                .stream().map(SuggestionDTO::text).toList();
+    }
+
+    private MovieDetailedDTO getMovie(long id) throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/api/movie/" + id))
+                .andExpect(status().isOk())
+                .andReturn();
+        return objectMapper.readValue(mvcResult.getResponse().getContentAsString(), MovieDetailedDTO.class);
+    }
 
     private Movie createTestMovie() {
         String title = "Test Title";
         int year = 2000;
-        Set<String> genre = Set.of("Genre1", "Genre2");
         Director director = new Director("Test director");
         directorRepository.save(director);
-        return new Movie(title, year, genre, director);
+        return new Movie(title, year, genres("Genre1", "Genre2"), director);
+    }
+
+    private short[] genres(String... names) {
+        return genreDictionary.resolve(Set.of(names));
     }
 
 }
@@ -0,0 +1,84 @@
+package com.example.springrest;
+
+import com.example.springrest.cache.EntityChangedEvent;
+import com.example.springrest.cache.InvalidationBus;
+import com.example.springrest.dto.MovieUploadResponseDTO;
+import com.example.springrest.repository.DirectorRepository;
+import com.example.springrest.repository.MovieRepository;
+import com.example.springrest.service.MovieImportService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/** Uploads with the default import settings; the test profile turns parallel imports on, so this turns them off **/
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.MOCK,
+        classes = SpringRestApplication.class,
+        properties = "movie.import.parallelism=1"
+)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+public class MovieUploadConcurrencyTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MovieImportService movieImportService;
+
+    @Autowired
+    private MovieRepository movieRepository;
+
+    @Autowired
+    private DirectorRepository directorRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private InvalidationBus invalidationBus;
+
+    @BeforeEach
+    public void beforeEach() {
+        movieRepository.deleteAll();
+        directorRepository.deleteAll();
+        Arrays.stream(EntityChangedEvent.EntityType.values())
+                .forEach(type -> invalidationBus.publish(new EntityChangedEvent(type, List.of())));
+    }
+
+    @Test
+    protected void testUploadMovies_ConcurrentUploadsAreServed() throws Exception {
+        BlockingInputStream blocked = new BlockingInputStream(getClass().getResourceAsStream("/movies.json"));
+        CompletableFuture<MovieUploadResponseDTO> first = CompletableFuture.supplyAsync(
+                () -> movieImportService.importMovies(blocked));
+        blocked.awaitReading();
+
+        MvcResult mvcResult = mockMvc.perform(multipart("/api/movie/upload")
+                        .file(new MockMultipartFile("file", "movies.json", MediaType.APPLICATION_JSON_VALUE,
+                                getClass().getResourceAsStream("/movies.json"))))
+                .andExpect(status().isCreated())
+                .andReturn();
+        assertEquals(new MovieUploadResponseDTO(23, 0, 7),
+                objectMapper.readValue(mvcResult.getResponse().getContentAsString(), MovieUploadResponseDTO.class));
+
+        blocked.release();
+        assertEquals(new MovieUploadResponseDTO(0, 23, 7), first.get(10, TimeUnit.SECONDS));
+        assertEquals(23, movieRepository.count());
+    }
+}
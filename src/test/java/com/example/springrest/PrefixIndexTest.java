@@ -0,0 +1,42 @@
+package com.example.springrest;
+
+import com.example.springrest.service.utils.PrefixIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefixIndexTest {
+
+    @Test
+    public void testFind_SharedPrefixesSplitAndMergeBack() {
+        PrefixIndex index = new PrefixIndex();
+        index.put(3L, "Matrix");
+        index.put(1L, "Mátrix Reloaded");
+        index.put(2L, "The Mask");
+        index.put(4L, "Matrix");
+
+        assertEquals(List.of(3L, 4L, 1L), index.find("matrix", 10));
+        assertEquals(List.of(2L, 3L, 4L, 1L), index.find("ma", 10));
+        assertEquals(List.of(2L, 3L), index.find("MA", 2));
+        assertEquals(List.of(), index.find("matrices", 10));
+        assertEquals(List.of(), index.find("  ", 10));
+
+        index.put(3L, "Speed");
+        index.remove(4L);
+        index.remove(2L);
+        assertEquals(List.of(1L), index.find("ma", 10));
+        assertEquals(List.of(1L), index.find("matrix r", 10));
+        assertEquals(List.of(1L), index.find("reload", 10));
+        assertEquals(List.of(3L), index.find("s", 10));
+        assertEquals("Speed", index.text(3L));
+        assertNull(index.text(2L));
+        assertEquals(2, index.size());
+
+        index.remove(1L);
+        index.remove(3L);
+        assertEquals(List.of(), index.find("m", 10));
+        assertEquals(0, index.size());
+    }
+}